@@ -1,3 +1,5 @@
 module com.github.ds67.jminicache {
+	requires java.management;
+	
 	exports com.github.ds67.jminicache;
 }
\ No newline at end of file
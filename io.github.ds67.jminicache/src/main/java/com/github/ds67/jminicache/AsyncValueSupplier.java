@@ -0,0 +1,48 @@
+package com.github.ds67.jminicache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous counterpart of the {@link ValueSupplier} interface. Instead of returning the value it returns a future
+ * which is completed when the value is available.
+ *
+ * The supplier gets the loader executor of the cache and should run blocking work on it (or on an own executor), the
+ * calling thread must not be blocked. Use {@link #of(ValueSupplier)} to run a blocking supplier on the loader executor.
+ *
+ * @see MiniCache#getAsync(Object, AsyncValueSupplier)
+ * @see MiniCacheBuilder#setLoaderExecutor(Executor)
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Value> Value type which is returned by the supplier
+ */
+@FunctionalInterface
+public interface AsyncValueSupplier<Value>
+{
+	CompletableFuture<Value> get(Executor executor);
+
+	/**
+	 * Wraps a blocking supplier into an asynchronous supplier which calls the supplier on the provided executor. Exceptions
+	 * of the supplier complete the future exceptionally.
+	 *
+	 * @param <Value> Value type which is returned by the supplier
+	 * @param supplier blocking supplier to wrap
+	 * @return asynchronous supplier
+	 */
+	static <Value> AsyncValueSupplier<Value> of (final ValueSupplier<Value, ?> supplier)
+	{
+		return (executor) -> {
+			final var result = new CompletableFuture<Value>();
+			executor.execute(() -> {
+				try {
+					result.complete(supplier.get());
+				}
+				catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			});
+			return result;
+		};
+	}
+}
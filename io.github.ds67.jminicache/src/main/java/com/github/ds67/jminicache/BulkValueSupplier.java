@@ -0,0 +1,29 @@
+package com.github.ds67.jminicache;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Supplier which loads the values of several keys at once, e.g. by a single database query. 
+ * 
+ * Like the {@link ValueSupplier} it may throw an exception which is rethrown by 
+ * {@link MiniCache#getAll(java.util.Collection, BulkValueSupplier)}.
+ *  
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Value type which is returned by the supplier 
+ * @param <E> Exception to throw
+ */
+@FunctionalInterface
+public interface BulkValueSupplier<Key, Value, E extends Throwable>
+{
+	/**
+	 * Loads the values of the keys. Keys which are not contained in the returned map are not cached.
+	 * 
+	 * @param keys keys which are neither cached nor currently loaded by another thread 
+	 * @return loaded values
+	 * @throws E Exception which is rethrown to the caller
+	 */
+	Map<Key, ValueWithExpiry<Value>> get(Set<Key> keys) throws E;
+}
@@ -0,0 +1,71 @@
+package com.github.ds67.jminicache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writer which propagates changes of the cache to an underlying store (e.g. a database). 
+ * 
+ * The writer is called for {@link MiniCache#set(Object, Object)} (and its variants) and {@link MiniCache#remove(Object)}.
+ * It is not called for values created by suppliers, refreshed values, expired or evicted entries and {@link MiniCache#clear()}, 
+ * as these do not change the content of the underlying store.
+ * 
+ * Depending on the {@link MiniCacheBuilder.WriteMode} the writer is either called synchronously for every change or 
+ * asynchronously with batches of changes. Override the batch methods when the store supports batched changes.
+ * 
+ * @see MiniCacheBuilder#setCacheWriter(CacheWriter, MiniCacheBuilder.WriteMode)
+ * 
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cached values
+ */
+public interface CacheWriter<Key, Value>
+{
+	/**
+	 * Writes a new or changed value. 
+	 * 
+	 * @param key key of the value
+	 * @param value new value
+	 */
+	void write(Key key, Value value);
+	
+	/**
+	 * Deletes a key.
+	 * 
+	 * @param key removed key
+	 */
+	void delete(Key key);
+	
+	/**
+	 * Writes a batch of new or changed values.
+	 * 
+	 * @param entries new values
+	 */
+	default void writeAll(Map<Key, Value> entries)
+	{
+		entries.forEach(this::write);
+	}
+	
+	/**
+	 * Deletes a batch of keys.
+	 * 
+	 * @param keys removed keys
+	 */
+	default void deleteAll(Collection<Key> keys)
+	{
+		keys.forEach(this::delete);
+	}
+	
+	/**
+	 * Called in {@link MiniCacheBuilder.WriteMode#WRITE_BEHIND} mode when changes could not be written after several 
+	 * retries. The changes are dropped from the queue and will not be written anymore. The default implementation does 
+	 * nothing, the failure is logged anyway.
+	 * 
+	 * @param keys keys whose changes were dropped
+	 * @param cause exception of the last attempt
+	 */
+	default void onWriteFailure(Collection<Key> keys, RuntimeException cause)
+	{
+	}
+}
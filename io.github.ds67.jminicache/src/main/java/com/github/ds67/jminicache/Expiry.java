@@ -0,0 +1,114 @@
+package com.github.ds67.jminicache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy which calculates the lifetime of cache entries when they are created, updated or read.
+ *
+ * All durations are in milliseconds, {@link #NEVER} denotes an entry which never expires. An expiry date which is
+ * passed explicitly to a set method (or by a supplier with {@link ValueWithExpiry}) takes precedence over the policy
+ * on creation and update.
+ *
+ * Reads are frequent, thus {@link #expireAfterRead(Object, Object, long, long)} is called without holding the write lock
+ * of the cache and must be cheap. Returning the current duration keeps the expiry date unchanged.
+ *
+ * @see MiniCacheBuilder#setExpiry(Expiry)
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cached values
+ */
+public interface Expiry<Key, Value>
+{
+	/**
+	 * Duration of entries which never expire
+	 */
+	static final long NEVER = Long.MAX_VALUE;
+
+	/**
+	 * @param key key of the new entry
+	 * @param value value of the new entry
+	 * @param currentTime current time in epoch milliseconds
+	 * @return lifetime of the new entry
+	 */
+	long expireAfterCreate(Key key, Value value, long currentTime);
+
+	/**
+	 * @param key key of the entry
+	 * @param value new value of the entry
+	 * @param currentTime current time in epoch milliseconds
+	 * @param currentDuration remaining lifetime of the replaced value
+	 * @return new lifetime of the entry
+	 */
+	long expireAfterUpdate(Key key, Value value, long currentTime, long currentDuration);
+
+	/**
+	 * @param key key of the entry
+	 * @param value value of the entry
+	 * @param currentTime current time in epoch milliseconds
+	 * @param currentDuration remaining lifetime of the entry
+	 * @return new lifetime of the entry
+	 */
+	long expireAfterRead(Key key, Value value, long currentTime, long currentDuration);
+
+	/**
+	 * Creates a policy which expires entries a fixed time after they were created or updated (time to live).
+	 *
+	 * @param <Key> Type of the cache key
+	 * @param <Value> Type of the cached values
+	 * @param duration lifetime of the entries
+	 * @param unit unit of the duration
+	 * @return expiry policy
+	 */
+	static <Key, Value> Expiry<Key, Value> afterWrite (final long duration, final TimeUnit unit)
+	{
+		final long millis = unit.toMillis(duration);
+		return new Expiry<Key, Value>() {
+			@Override
+			public long expireAfterCreate(Key key, Value value, long currentTime) {
+				return millis;
+			}
+
+			@Override
+			public long expireAfterUpdate(Key key, Value value, long currentTime, long currentDuration) {
+				return millis;
+			}
+
+			@Override
+			public long expireAfterRead(Key key, Value value, long currentTime, long currentDuration) {
+				return currentDuration;
+			}
+		};
+	}
+
+	/**
+	 * Creates a policy which expires entries a fixed time after their last access (sliding expiration, time to idle).
+	 *
+	 * @param <Key> Type of the cache key
+	 * @param <Value> Type of the cached values
+	 * @param duration time an entry may stay unused
+	 * @param unit unit of the duration
+	 * @return expiry policy
+	 */
+	static <Key, Value> Expiry<Key, Value> afterAccess (final long duration, final TimeUnit unit)
+	{
+		final long millis = unit.toMillis(duration);
+		return new Expiry<Key, Value>() {
+			@Override
+			public long expireAfterCreate(Key key, Value value, long currentTime) {
+				return millis;
+			}
+
+			@Override
+			public long expireAfterUpdate(Key key, Value value, long currentTime, long currentDuration) {
+				return millis;
+			}
+
+			@Override
+			public long expireAfterRead(Key key, Value value, long currentTime, long currentDuration) {
+				return millis;
+			}
+		};
+	}
+}
@@ -3,6 +3,8 @@ package com.github.ds67.jminicache;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Flow.Publisher;
 import java.util.concurrent.Flow.Subscriber;
 import java.util.function.Function;
@@ -27,6 +29,9 @@ import java.util.function.Function;
  * <li>{@link #fetch(Object)}</li>
  * <li>{@link #get(Object, ValueSupplier)}</li>
  * <li>{@link #get(Object, ValueSupplier, long)}</li>
+ * <li>{@link #getAll(Collection, BulkValueSupplier)}</li>
+ * <li>{@link #getAsync(Object)}</li>
+ * <li>{@link #getAsync(Object, AsyncValueSupplier)}</li>
  * </ul>
  * 
  * item manipulation
@@ -58,14 +63,18 @@ import java.util.function.Function;
  * Configuration:
  * <ul>
  * <li>{@link #setMaxSize(int)}</li>
+ * <li>{@link #setMaxWeight(long)}</li>
  * <li>{@link #setRefreshMethod(Function)}</li>
  * <li>{@link #setValueFactory(Function)}</li>
  * <li>{@link #setValueWithExpiryFactory(Function)}</li>
+ * <li>{@link #setAsyncValueFactory(Function)}</li>
+ * <li>{@link #setLoaderExecutor(Executor)}</li>
  * </ul>
  * 
  * Configuration information:
  * <ul>
  * <li>{@link #getMaxSize()}</li>
+ * <li>{@link #getMaxWeight()}</li>
  * <li>{@link #getValueWithExpiryFactory()}</li>
  * </ul>
  * 
@@ -153,6 +162,55 @@ public interface MiniCache<Key, Value> extends Publisher<CacheChangeEvent<Key, V
 	 */
 	<E extends Throwable> Value get(Key key, ValueSupplier<Value, E> supplier, long expireDate) throws E;
 
+	/**
+	 * Retrieves the values of several keys. All keys which are not cached are loaded by a single call of the supplier.
+	 * 
+	 * The cache is locked just once per segment to look up all keys and once more to insert all loaded values. 
+	 * The single load guarantee of {@link #get(Object, ValueSupplier)} holds per key: keys which are currently loaded 
+	 * by another thread are not passed to the supplier, their values are awaited instead.
+	 * 
+	 * @param <E> Exception type the supplier function throws
+	 * 
+	 * @param keys keys to retrieve
+	 * @param supplier Function which is called with all keys which must be loaded. It is not called when all keys are cached.
+	 * 
+	 * @return map of all keys to their values. Keys the supplier did not return a value for are mapped to <code>null</code>.
+	 * 
+	 * @throws E Exception the supplier function throws. None of the loaded values is inserted in the cache then.
+	 */
+	<E extends Throwable> Map<Key, Value> getAll(Collection<Key> keys, BulkValueSupplier<Key, Value, E> supplier) throws E;
+
+	/**
+	 * Asynchronous version of {@link #get(Object, ValueSupplier)}. The calling thread is never blocked by the supplier, 
+	 * on a hit a completed future is returned.
+	 * 
+	 * Asynchronous and synchronous gets share the same guarantee that the supplier is called only once for a key, 
+	 * parallel requests for a key which is currently loaded get a future completed with the loaded value.
+	 * 
+	 * @see AsyncValueSupplier#of(ValueSupplier)
+	 * 
+	 * @param key key by which the desired value can be found. 
+	 * @param supplier Function which will be called with the loader executor when the key is not found in the cache. 
+	 * 
+	 * @return future which is completed with the value, or completed exceptionally with the exception of the supplier. 
+	 *         No insertion in the cache takes place when the supplier fails.
+	 */
+	CompletableFuture<Value> getAsync(Key key, AsyncValueSupplier<ValueWithExpiry<Value>> supplier);
+
+	/**
+	 * Asynchronous version of {@link #get(Object)}. 
+	 * 
+	 * Uses the asynchronous value factory when installed, otherwise the value factory is called on the loader executor. 
+	 * If no factory is installed at all the method behaves like the {@link #fetch(Object)} method.
+	 * 
+	 * @see #setAsyncValueFactory(Function)
+	 * @see #setLoaderExecutor(Executor)
+	 * 
+	 * @param key key for which the value should be retrieved
+	 * @return future which is completed with the value
+	 */
+	CompletableFuture<Value> getAsync(Key key);
+
 	/**
 	 * Adds a value to the cache without setting a expiry date
 	 * 
@@ -231,6 +289,10 @@ public interface MiniCache<Key, Value> extends Publisher<CacheChangeEvent<Key, V
 
 	/**
 	 * Get the number of elements in the cache
+	 * 
+	 * Expired entries are counted until the expiry manager removed them, which happens a few milliseconds after their 
+	 * expiry. The get and contains methods as well as the key, value and entry sets treat them as missing already.
+	 * 
 	 * @return the number of keys in the cache 
 	*/
 	int size();
@@ -262,6 +324,21 @@ public interface MiniCache<Key, Value> extends Publisher<CacheChangeEvent<Key, V
 
 	int getMaxSize();
 
+	/**
+	 * Sets the maximum total weight of the cache entries. Entries are evicted until both the maximum size and the maximum 
+	 * weight are kept. The weight of the entries is calculated by the weigher set with 
+	 * {@link MiniCacheBuilder#setWeigher(Weigher)}, without a weigher every entry weighs 1.
+	 * 
+	 * When the weight is negative it is considered as unbounded. As for {@link #setMaxSize(int)} the maximum weight has 
+	 * no effect for the eviction policy {@link MiniCacheBuilder.EvictionPolicy#EVICTION_NONE}.
+	 * 
+	 * @param maxWeight new maximum total weight
+	 * @return this object to provide a builder like interface
+	 */
+	MiniCache<Key, Value> setMaxWeight(long maxWeight);
+
+	long getMaxWeight();
+
 	/**
 	 * Sets a value factory function for the cache.
 	 * 
@@ -282,19 +359,42 @@ public interface MiniCache<Key, Value> extends Publisher<CacheChangeEvent<Key, V
 
 	MiniCache<Key, Value> setValueFactory(Function<Key, Value> valueFactory);
 
+	/**
+	 * Sets an asynchronous value factory. It takes precedence over the value factory for {@link #getAsync(Object)}. 
+	 * {@link #get(Object)} uses it only when no value factory is installed and waits for the result then. 
+	 * 
+	 * @param valueFactory function which returns a future for the value of a key or <code>null</code> to delete the installed factory
+	 * @return this object to provide a builder like interface
+	 */
+	MiniCache<Key, Value> setAsyncValueFactory(Function<Key, CompletableFuture<ValueWithExpiry<Value>>> valueFactory);
+
+	/**
+	 * Sets the executor which is passed to asynchronous suppliers and which runs the value factory for {@link #getAsync(Object)}.
+	 * The default is the {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+	 * 
+	 * @param executor executor for loading values
+	 * @return this object to provide a builder like interface
+	 */
+	MiniCache<Key, Value> setLoaderExecutor(Executor executor);
+
 	/**
 	 * Installes a method which will be called when cache entries are expired.
 	 * This method is called with the expired key as argument and mus return a {@link ValueWithExpiry} object.
 	 * The new object might also be unlimited valid.
 	 * 
-	 * Please note that the refresh method is executed in the context of the scheduler threads. If you have many items 
-	 * waiting for refreshment you should consider installing an own multithreaded scheduler to handle all requests
-	 * near real time.
+	 * Please note that the refresh method is executed on the loader executor, the scheduler thread only triggers the refresh. 
+	 * If you have many items waiting for refreshment you should consider a loader executor with enough threads (e.g. virtual threads)
+	 * to handle all requests near real time.
 	 * The existing item is replaced when a new value is available. Therefore, when refreshing is slow, the old value will be
 	 * visible further than the expire date.  
 	 * 
-	 * @see MiniCacheBuilder#setSchedulerService(java.util.concurrent.ScheduledExecutorService)
-	 * @see MiniCacheBuilder#getSchedulerService()
+	 * The refresh method is also used to reload entries ahead of their expiry, when a value was stored with a refresh time 
+	 * (see {@link ValueWithExpiry#withRefreshAfter(long)}). The first read after the refresh time triggers a single reload
+	 * on the loader executor, all reads keep getting the current value until the reloaded value is available. If no refresh
+	 * method is installed the value factories are used for reloading.
+	 * 
+	 * @see #setLoaderExecutor(Executor)
+	 * @see MiniCacheBuilder#setUseVirtualThreads(boolean)
 	 * 
 	 * @param refreshMethod method to refresh a key or <code>null</code> to stop refreshing a remove keys again.
 	 * @return the current object to allow method chaining
@@ -318,13 +418,28 @@ public interface MiniCache<Key, Value> extends Publisher<CacheChangeEvent<Key, V
 	 */
 	Function<Key, ValueWithExpiry<Value>> getValueWithExpiryFactory();
 
+	/**
+	 * Passes all changes which are queued in {@link MiniCacheBuilder.WriteMode#WRITE_BEHIND} mode to the cache writer and 
+	 * waits until they are written. Changes which fail are queued again. Does nothing without a write behind writer.
+	 */
+	void flush();
+	
+	/**
+	 * Writes all changes which are queued in {@link MiniCacheBuilder.WriteMode#WRITE_BEHIND} mode and passes later changes 
+	 * synchronously to the cache writer. The cache stops adapting to the heap pressure. 
+	 * 
+	 * Call this method before the application shuts down, otherwise queued changes are lost. The cache can still be used 
+	 * afterwards.
+	 */
+	void close();
+
 	/**
 	 * Clears the content of the cache.
 	 */
 	void clear();
 
 	/**
-	 * Retrieved the current set of stored key of the cache
+	 * Retrieved the current set of stored key of the cache. Expired entries are left out, even when they are not removed yet.
 	 * 
 	 * @return set of the currently stored keys
 	 */
@@ -360,8 +475,7 @@ public interface MiniCache<Key, Value> extends Publisher<CacheChangeEvent<Key, V
 	 * expiry times.
 	 * If no expiry manager is installed all expiry times are set to 0.
 	 * 
-	 * Please note that this methods needs O(n*log(n)) processing time with n cached elements when a expire manager is in place
-	 * in contrast to the @see #entrySet() method.  
+	 * The expiry times are stored with the entries, thus this method needs O(n) processing time like the @see #entrySet() method.  
 	 * 
 	 * @see ValueWithExpiry
 	 * 
@@ -6,12 +6,17 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import com.github.ds67.jminicache.impl.MiniCacheImpl;
+import com.github.ds67.jminicache.impl.WriteBehindWriter;
 
 public class MiniCacheBuilder<Key, Value> {
 
@@ -24,8 +29,9 @@ public class MiniCacheBuilder<Key, Value> {
 	public static enum EvictionPolicy
 	{
 		/**
-		 * Eviction policy: Removes the least recently used entry when necessary. Beware that this policy needs a single thread access even for read cache requests
-		 * as the LRU status must be recorded. This may slow done the cache access.
+		 * Eviction policy: Removes the least recently used entry when necessary. Reads are recorded in buffers and applied to the LRU order
+		 * in batches, thus reads are done in parallel. As reads are recorded they still need a (shared) read lock, even for the
+		 * {@link StoragePolicy#CONCURRENT_HASH_STORAGE}.
 		 * 
 		 * Choose this eviction policy when the entries to not age and the probability of a new access to such an item does not increase over time. That you have a risk
 		 * of trashing the cache where you always remove the entries with the highest probability for the next access.  
@@ -40,6 +46,78 @@ public class MiniCacheBuilder<Key, Value> {
 		 */
 		EVICTION_FIFO,
 		
+		/**
+		 * Eviction policy: Window TinyLFU. New entries pass a small LRU window, afterwards they are only kept when they are accessed 
+		 * more often than the entry which would be removed for them. The access frequencies are estimated by a compact sketch 
+		 * which also remembers keys which were already removed. Reads are recorded in buffers as done for {@link #EVICTION_LRU}.
+		 * 
+		 * Choose this policy for skewed access patterns, especially when keys which are used only once (e.g. by scans) would flush
+		 * frequently used entries from a LRU cache.
+		 */
+		EVICTION_TINYLFU,
+		
+		/**
+		 * Eviction policy: Adaptive replacement cache (ARC). Entries read once and entries read several times are kept in separate LRU lists,
+		 * the keys of recently removed entries are remembered to adapt the split between these lists at runtime. Reads are recorded in
+		 * buffers as done for {@link #EVICTION_LRU}.
+		 * 
+		 * Choose this policy when the workload shifts between recency and frequency dominated access patterns, it is scan resistant without 
+		 * any tuning.
+		 */
+		EVICTION_ARC,
+		
+		/**
+		 * Eviction policy: Removes the least frequently used entry. The access frequencies are halved periodically, so entries which were
+		 * used often in the past but are no longer used leave the cache eventually. Reads are recorded in buffers as done for {@link #EVICTION_LRU}.
+		 * 
+		 * Choose this policy for a stable set of frequently used entries, e.g. reference data.
+		 */
+		EVICTION_LFU,
+		
+		/**
+		 * Eviction policy: SIEVE. Reads only mark an entry as visited, the entries which were not visited since the last check are removed
+		 * in insertion order. As reads do not change the eviction order they run in parallel to each other like for {@link #EVICTION_FIFO}, 
+		 * with {@link StoragePolicy#CONCURRENT_HASH_STORAGE} even without a lock. 
+		 * 
+		 * Choose this policy for a hit rate close to {@link #EVICTION_LRU} with the read scalability of {@link #EVICTION_FIFO}.
+		 */
+		EVICTION_SIEVE,
+		
+		/**
+		 * Eviction policy: S3-FIFO. New entries pass a small FIFO queue and are only moved to the main FIFO queue when they are read again,
+		 * entries in the main queue get another round for every read. Reads only increment a counter of the entry, thus they run in
+		 * parallel like for {@link #EVICTION_FIFO}.
+		 * 
+		 * Choose this policy when many keys are used only once, they are removed quickly without flushing the frequently used entries.
+		 */
+		EVICTION_S3FIFO,
+		
+		/**
+		 * Eviction policy: sampled LRU. Every entry stores the time of its last access, the entry to delete is the least recently 
+		 * used one of a few randomly chosen entries. Reads only write the access time, thus they run in parallel like for {@link #EVICTION_FIFO}.
+		 * 
+		 * Choose this policy for very large caches, an entry needs less memory than for {@link #EVICTION_LRU} at the price of an
+		 * approximated LRU order.
+		 */
+		EVICTION_SAMPLED_LRU,
+		
+		/**
+		 * Eviction policy: segmented LRU. New entries are put into a probation segment and are moved to a protected segment when they
+		 * are accessed again. Entries are evicted from the probation segment first.
+		 * 
+		 * Choose this policy instead of {@link #EVICTION_LRU} when keys used only once must not flush the frequently used entries.
+		 */
+		EVICTION_SLRU,
+		
+		/**
+		 * Eviction policy: GreedyDual-Size-Frequency. The cache measures how long the value factory or supplier took to load a value.
+		 * Entries which are expensive to reload, frequently read or light (see {@link MiniCacheBuilder#setWeigher(Weigher)}) are kept 
+		 * longer, entries which were not read for a long time are evicted eventually regardless of their cost. 
+		 * 
+		 * Choose this policy when load times differ widely and the total time spent on reloading matters more than the hit rate.
+		 */
+		EVICTION_GDSF,
+		
 		/**
 		 * Eviction policy: No entries will be removed in background. Use this policy when you either have a limit set of entries which do never expire.
 		 * Usage of the cache is then similar to a simple {@link Map}. However, reads to the cache are done in parallel and will only
@@ -68,8 +146,73 @@ public class MiniCacheBuilder<Key, Value> {
 		 * Builds a key value store based on a {@link TreeMap}. A TreeMap has a guaranteed access time of O(n) time and uses less memory than the
 		 * hash based tree storage. Therefore, use a tree map when memory consumption is an issue (many keys and small cached values).
 		 */
-		TREE_MAP_STORAGE
+		TREE_MAP_STORAGE,
+
+		/**
+		 * Uses a concurrent hash based key value store (based on a {@link java.util.concurrent.ConcurrentHashMap}). Reads
+		 * ({@link MiniCache#fetch(Object)}, {@link MiniCache#contains(Object)} and hits of the get methods) do not acquire any lock
+		 * and run in parallel to writes. Writes and evictions are still serialized.
+		 *
+		 * Reads are only lock free for eviction policies which do not reorganize their structures upon reads
+		 * ({@link EvictionPolicy#EVICTION_FIFO} and {@link EvictionPolicy#EVICTION_NONE}). Keys must not be <code>null</code>.
+		 * As reads are not locked {@link MiniCache#readLocked(Runnable)} does not block writers.
+		 */
+		CONCURRENT_HASH_STORAGE
+
+	}
+	
+	/**
+	 * Defines how the cache is locked for concurrent access
+	 * 
+	 * @author Jens Ketterer
+	 *
+	 */
+	public static enum LockingPolicy
+	{
+		/**
+		 * Reads acquire a shared read lock, writes an exclusive write lock (based on a {@link java.util.concurrent.locks.ReentrantReadWriteLock}).
+		 * This is the default locking. 
+		 */
+		READ_WRITE_LOCKING,
+		
+		/**
+		 * Locking based on a {@link java.util.concurrent.locks.StampedLock}. Reads are first tried optimistically without any lock and only 
+		 * fall back to a read lock when a parallel write happened. When a missing value must be created the read lock is converted atomically to
+		 * a write lock if possible. 
+		 * 
+		 * Optimistic reads are only done for {@link StoragePolicy#HASH_MAP_STORAGE} and eviction policies which do not record reads 
+		 * ({@link EvictionPolicy#EVICTION_FIFO} and {@link EvictionPolicy#EVICTION_NONE}). Otherwise reads are done with a read lock.
+		 * 
+		 * The lock is not reentrant, therefore cache methods must not be called within {@link MiniCache#writeLocked(Runnable)} 
+		 * or {@link MiniCache#readLocked(Runnable)}.
+		 */
+		OPTIMISTIC_LOCKING
+	}
+	
+	/**
+	 * Defines when changes are passed to the {@link CacheWriter}
+	 * 
+	 * @author Jens Ketterer
+	 *
+	 */
+	public static enum WriteMode
+	{
+		/**
+		 * The writer is called synchronously for every change before the cache is changed. When the writer fails the exception
+		 * is thrown by the set or remove method and the cache stays unchanged.
+		 */
+		WRITE_THROUGH,
 		
+		/**
+		 * Changes are queued and passed in batches to the writer on a background thread. Repeated changes of the same key 
+		 * are coalesced. A batch is written when enough changes are queued or after a delay (see 
+		 * {@link MiniCacheBuilder#setWriteBehindBatching(int, long, TimeUnit)}). Failed batches are retried a few times, 
+		 * then they are dropped and reported to {@link CacheWriter#onWriteFailure(java.util.Collection, RuntimeException)}.
+		 * When ten batches are queued the thread changing the cache writes the queue itself.
+		 * 
+		 * Call {@link MiniCache#close()} before the application shuts down to write the queued changes.
+		 */
+		WRITE_BEHIND
 	}
 	
 	public MiniCacheBuilder() {	
@@ -78,12 +221,26 @@ public class MiniCacheBuilder<Key, Value> {
 	private EvictionPolicy evictionPolicy=EvictionPolicy.EVICTION_NONE;
 	private StoragePolicy storagePolicy=StoragePolicy.HASH_MAP_STORAGE;
 	private boolean useExpiry = false;
+	private Expiry<Key, Value> expiry = null;
 	private boolean useSoftKeys = false;
 	private Comparator<Key> keyComparator = null;
 	private int maxSize = -1;
+	private long maxWeight = -1;
+	private Weigher<Key, Value> weigher = null;
+	private boolean adaptToHeapPressure = false;
+	private double lowWatermark = 1.0;
 	private Function<Key, ValueWithExpiry<Value>> valueFactory = null;
+	private Function<Key, CompletableFuture<ValueWithExpiry<Value>>> asyncValueFactory = null;
+	private Executor loaderExecutor = null;
+	private boolean useVirtualThreads = false;
+	private CacheWriter<Key, Value> cacheWriter = null;
+	private WriteMode writeMode = WriteMode.WRITE_THROUGH;
+	private int writeBehindBatchSize = 100;
+	private long writeBehindDelay = 1000;
 	private Function<Key, ValueWithExpiry<Value>> refreshMethod = null;
 	private boolean statistics = false;
+	private int concurrencyLevel = 1;
+	private LockingPolicy lockingPolicy = LockingPolicy.READ_WRITE_LOCKING;
 	
 	public MiniCacheBuilder<Key,Value> setEvictionPolicy (EvictionPolicy evictionPolicy)
 	{
@@ -98,9 +255,97 @@ public class MiniCacheBuilder<Key, Value> {
 		return this;
 	}
 	
+	/**
+	 * Limits the total weight of the cache entries in addition to the maximum number of entries.
+	 * 
+	 * @see MiniCache#setMaxWeight(long)
+	 * 
+	 * @param maxWeight maximum total weight, a negative weight for no limit
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setMaxWeight (long maxWeight)
+	{
+		this.maxWeight = maxWeight<0?-1:maxWeight;
+		return this;
+	}
+	
+	/**
+	 * Sets the function which calculates the weight of an entry for {@link #setMaxWeight(long)}. Without a weigher every 
+	 * entry weighs 1.
+	 * 
+	 * @param weigher weigher for the cache entries
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setWeigher (Weigher<Key, Value> weigher)
+	{
+		this.weigher = weigher;
+		return this;
+	}
+	
+	/**
+	 * Evicts entries in batches: once the cache exceeds its maximum size or weight it is shrunk to the given share of the
+	 * maximum. The default of 1 evicts a single entry with every write to a full cache.
+	 * 
+	 * @see com.github.ds67.jminicache.impl.MiniCacheImpl#setLowWatermark(double)
+	 * 
+	 * @param lowWatermark share of the maximum size and weight to shrink to, e.g. 0.9
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setLowWatermark (double lowWatermark)
+	{
+		this.lowWatermark = lowWatermark;
+		return this;
+	}
+	
+	/**
+	 * Lowers the maximum size and weight of the cache while the heap is nearly full after garbage collections and raises
+	 * them again when the heap usage has dropped. The entries are evicted by the eviction policy, so the least valuable
+	 * entries are dropped first (unlike soft values which the garbage collector clears in arbitrary order). Without an
+	 * eviction policy the capacity is not adapted.
+	 * 
+	 * @see com.github.ds67.jminicache.impl.MiniCacheImpl#onHeapPressure(double)
+	 * 
+	 * @param adaptToHeapPressure <code>true</code> to adapt the capacity to the heap usage
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setAdaptToHeapPressure (boolean adaptToHeapPressure)
+	{
+		this.adaptToHeapPressure = adaptToHeapPressure;
+		return this;
+	}
+	
+	/**
+	 * Expires entries the given time after they were set, unless an explicit expiry date is given. This is a shortcut 
+	 * for {@link #setExpiry(Expiry)} with {@link Expiry#afterWrite(long, TimeUnit)}.
+	 * 
+	 * A time span not greater than 0 stands for no default expiry: the expiry of the cache is enabled, but only entries 
+	 * with an explicit expiry date expire.
+	 * 
+	 * @param timespan time to live of the entries in milliseconds
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
 	public MiniCacheBuilder<Key,Value> setDefaultExpiryTime (long timespan)
 	{
-		this.useExpiry = true;
+		if (timespan<=0) {
+			this.expiry = null;
+			this.useExpiry = true;
+			return this;
+		}
+		return setExpiry(Expiry.afterWrite(timespan, TimeUnit.MILLISECONDS));
+	}
+	
+	/**
+	 * Sets the policy which calculates the lifetime of entries on creation, update and read. Use 
+	 * {@link Expiry#afterWrite(long, TimeUnit)} for a fixed time to live and {@link Expiry#afterAccess(long, TimeUnit)}
+	 * for sliding expiration. Enables the expiry of the cache.
+	 * 
+	 * @param expiry expiry policy
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setExpiry (Expiry<Key, Value> expiry)
+	{
+		this.expiry = expiry;
+		this.useExpiry = expiry!=null || this.useExpiry;
 		return this;
 	}
 	
@@ -118,6 +363,41 @@ public class MiniCacheBuilder<Key, Value> {
 		return this;
 	}
 
+	/**
+	 * Sets the locking policy of the cache.
+	 * 
+	 * @see LockingPolicy
+	 * 
+	 * @param policy policy to set
+	 * @return MiniCacheBuilder instance to allow chaining	
+	 */
+	public MiniCacheBuilder<Key,Value> setLockingPolicy (LockingPolicy policy)
+	{
+		this.lockingPolicy = policy;
+		return this;
+	}
+	
+	/**
+	 * Sets the number of independent segments of the cache. Keys are distributed by their hash code over the segments.
+	 * Every segment has its own storage, eviction manager and lock and holds its share of the maximum cache size. Thus
+	 * operations on keys of different segments never contend on the same lock.
+	 * 
+	 * As eviction is done per segment the eviction policy is only applied within a segment, e.g. for 
+	 * {@link EvictionPolicy#EVICTION_LRU} the removed entry is the least recently used entry of its segment but not 
+	 * necessarily of the whole cache. Choose a concurrency level well below the maximum size of the cache, a cache with 
+	 * a maximum size below the concurrency level is built with one segment per entry.
+	 * 
+	 * The default is a single segment.
+	 * 
+	 * @param concurrencyLevel number of segments, values less than 1 are treated as 1
+	 * @return MiniCacheBuilder instance to allow chaining	
+	 */
+	public MiniCacheBuilder<Key,Value> setConcurrencyLevel (int concurrencyLevel)
+	{
+		this.concurrencyLevel=Math.max(1, concurrencyLevel);
+		return this;
+	}
+	
 	/**
 	 * Defines if the cache calculates usage statistics
 	 * 
@@ -208,13 +488,38 @@ public class MiniCacheBuilder<Key, Value> {
 	 */
 	public MiniCache<Key, Value> build ()
 	{
-		var cache = new MiniCacheImpl<Key, Value>(maxSize, evictionPolicy, storagePolicy, useSoftKeys, useExpiry, keyComparator);
+		// every segment must be able to hold at least one entry
+		final int segments = maxSize>0?Math.min(maxSize, concurrencyLevel):concurrencyLevel;
+		var cache = new MiniCacheImpl<Key, Value>(maxSize, evictionPolicy, storagePolicy, useSoftKeys, useExpiry, keyComparator, segments, lockingPolicy);
 		if (valueFactory!=null) {
 			cache.setValueWithExpiryFactory(valueFactory);
 		}
+		if (asyncValueFactory!=null) {
+			cache.setAsyncValueFactory(asyncValueFactory);
+		}
+		final Executor executor = loaderExecutor!=null?loaderExecutor:useVirtualThreads?getVirtualThreadExecutor():ForkJoinPool.commonPool();
+		cache.setLoaderExecutor(executor);
+		if (cacheWriter!=null) {
+			cache.setCacheWriter(writeMode==WriteMode.WRITE_BEHIND
+					?new WriteBehindWriter<Key, Value>(cacheWriter, writeBehindBatchSize, writeBehindDelay, getSchedulerService(), executor)
+					:cacheWriter);
+		}
 		if (refreshMethod!=null) {
 			cache.setRefreshMethod(refreshMethod);
 		}
+		if (expiry!=null) {
+			cache.setExpiry(expiry);
+		}
+		if (weigher!=null) {
+			cache.setWeigher(weigher);
+		}
+		if (maxWeight>=0) {
+			cache.setMaxWeight(maxWeight);
+		}
+		if (adaptToHeapPressure) {
+			cache.setAdaptToHeapPressure(true);
+		}
+		cache.setLowWatermark(lowWatermark);
 		cache.setCalculateStatistics(statistics);
 		
 		return cache;
@@ -247,6 +552,81 @@ public class MiniCacheBuilder<Key, Value> {
 		return this;
 	}
 
+	/**
+	 * Uses an asynchronous value factory for {@link MiniCache#getAsync(Object)}.
+	 * 
+	 * @see MiniCache#setAsyncValueFactory(Function)
+	 * 
+	 * @param valueFactory Value factory to install
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setAsyncValueFactory(Function<Key, CompletableFuture<ValueWithExpiry<Value>>> valueFactory)
+	{
+		this.asyncValueFactory=valueFactory;
+		return this;
+	}
+
+	/**
+	 * Sets the executor which loads values asynchronously. The default is the common fork join pool.
+	 * 
+	 * @see MiniCache#setLoaderExecutor(Executor)
+	 * 
+	 * @param executor executor for loading values
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setLoaderExecutor(Executor executor)
+	{
+		this.loaderExecutor=executor;
+		return this;
+	}
+
+	/**
+	 * Installs a writer which gets all changes done with the set and remove methods of the cache.
+	 * 
+	 * @see CacheWriter
+	 * 
+	 * @param writer writer to install
+	 * @param mode defines if the writer is called synchronously or in batches on a background thread
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setCacheWriter(CacheWriter<Key, Value> writer, WriteMode mode)
+	{
+		this.cacheWriter=writer;
+		this.writeMode=mode;
+		return this;
+	}
+
+	/**
+	 * Configures when queued changes are written in {@link WriteMode#WRITE_BEHIND} mode. The defaults are 100 changes and one second.
+	 * 
+	 * @param batchSize number of queued changes which are written at once
+	 * @param delay maximum time a change is queued
+	 * @param unit unit of the delay
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setWriteBehindBatching(int batchSize, long delay, TimeUnit unit)
+	{
+		this.writeBehindBatchSize=batchSize;
+		this.writeBehindDelay=unit.toMillis(delay);
+		return this;
+	}
+
+	/**
+	 * Runs asynchronous loads and refresh methods on a new thread per task. On Java 21 and later virtual threads are used, thus 
+	 * thousands of parallel loads do not need thousands of platform threads. On older Java versions daemon threads of a cached
+	 * thread pool are used instead.
+	 * 
+	 * An executor set by {@link #setLoaderExecutor(Executor)} takes precedence.
+	 * 
+	 * @param useVirtualThreads <code>true</code> to load values on virtual threads
+	 * @return MiniCacheBuilder instance to allow chaining
+	 */
+	public MiniCacheBuilder<Key,Value> setUseVirtualThreads(boolean useVirtualThreads)
+	{
+		this.useVirtualThreads=useVirtualThreads;
+		return this;
+	}
+
 	/*
 	 * 
 	 * Static scheduler service
@@ -259,6 +639,35 @@ public class MiniCacheBuilder<Key, Value> {
 	 */
 	private static ScheduledExecutorService scheduler = null;
 	
+	private static Executor virtualThreadExecutor = null;
+	
+	/**
+	 * Gets the executor which starts a new virtual thread per task. It is shared by all cache instances.
+	 * The executor is looked up by reflection, as the library must still run on Java versions without virtual threads.
+	 * 
+	 * @return executor running every task on an own (virtual) thread
+	 */
+	static Executor getVirtualThreadExecutor ()
+	{
+		if (virtualThreadExecutor==null) {
+			try {
+				virtualThreadExecutor = (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			}
+			catch (ReflectiveOperationException e) {
+				virtualThreadExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+					       final Thread t = Executors.defaultThreadFactory().newThread(r);
+			               t.setDaemon(true);
+			               t.setName("Minicache loader");
+			               return t;
+					}
+				});
+			}
+		}
+		return virtualThreadExecutor;
+	}
+	
 	/**
 	 * Returns true when a scheduler instance was already created.
 	 * If not, a default scheduled service is installed by calling {@link #getSchedulerService()}. 
@@ -19,6 +19,10 @@ public class ValueWithExpiry<Value>
 	// defines a point in time when the value expired
 	// when the value is 0 the value will never expire
 	final private long expiry;
+	
+	// defines a point in time after which the value is reloaded in the background while the current value is still served
+	// when the value is 0 the value is never reloaded ahead
+	final private long refreshAfter;
 
 	/**
 	 * Creates a new ValueWithExpiry object which never expires
@@ -60,14 +64,38 @@ public class ValueWithExpiry<Value>
 	
 	public ValueWithExpiry (Value value)
 	{
-		this.value=value;
-		this.expiry=0;
+		this(value, 0, 0);
 	}
 
 	public ValueWithExpiry (Value value, long expiry)
+	{
+		this(value, expiry, 0);
+	}
+
+	public ValueWithExpiry (Value value, long expiry, long refreshAfter)
 	{
 		this.value=value;
 		this.expiry=expiry;
+		this.refreshAfter=refreshAfter;
+	}
+	
+	/**
+	 * Creates a copy which is reloaded in the background after a point in time. Reads after this point still return the current
+	 * value and trigger a single asynchronous reload.
+	 * 
+	 * @see com.github.ds67.jminicache.MiniCache#setRefreshMethod(Function)
+	 * 
+	 * @param refreshAfter point in time in epoch milliseconds after which the value is reloaded
+	 * @return newly created object
+	 */
+	public ValueWithExpiry<Value> withRefreshAfter (long refreshAfter)
+	{
+		return new ValueWithExpiry<Value>(value, expiry, refreshAfter);
+	}
+	
+	public ValueWithExpiry<Value> withRefreshAfter (long delay, TimeUnit unit)
+	{
+		return withRefreshAfter(System.currentTimeMillis()+unit.toMillis(delay));
 	}
 
 	public Value getValue() {
@@ -77,6 +105,10 @@ public class ValueWithExpiry<Value>
 	public long getExpiry() {
 		return expiry;
 	}
+
+	public long getRefreshAfter() {
+		return refreshAfter;
+	}
 	
 	private static class FunctionWrapper<Key,Value> implements Function<Key,ValueWithExpiry<Value>>
 	{
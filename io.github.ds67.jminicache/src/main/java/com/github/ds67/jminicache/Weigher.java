@@ -0,0 +1,24 @@
+package com.github.ds67.jminicache;
+
+/**
+ * Calculates the weight of cache entries, e.g. the approximate memory size of the values. The weight is calculated once 
+ * when a value is stored, thus it must not change while the value is cached.
+ * 
+ * @see MiniCacheBuilder#setMaxWeight(long)
+ * @see MiniCacheBuilder#setWeigher(Weigher)
+ * 
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cached values
+ */
+@FunctionalInterface
+public interface Weigher<Key, Value>
+{
+	/**
+	 * @param key key of the entry
+	 * @param value value of the entry
+	 * @return weight of the entry, must not be negative
+	 */
+	int weigh (Key key, Value value);
+}
@@ -3,109 +3,256 @@ package com.github.ds67.jminicache.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.TreeMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
+/**
+ * Keeps track of the expiry dates of keys and calls the deletion trigger for expired keys on the scheduler.
+ *
+ * The expiry dates are organized in a hierarchical timing wheel. The time is divided into ticks of {@link #TICK_MILLIS}
+ * milliseconds. Every level of the wheel has 64 slots, a slot of the first level covers a single tick, a slot of the
+ * next level covers all 64 ticks of the level below and so on. A key is stored in the slot of the lowest level which
+ * covers its expiry date. Whenever the first level wrapped around the next slot of the level above is distributed
+ * (cascaded) to the levels below. Adding, removing and advancing takes O(1) time, keys are expired at most one tick late
+ * but never early.
+ *
+ * The wheel is advanced by a single periodic task which is started with the first key and stopped when no key is left.
+ * All keys which became due with an advance are passed to the deletion trigger in a single call, so that the cache can 
+ * remove them in batches instead of locking once per key.
+ *
+ * The internal structures are guarded by a {@link ReentrantLock} instead of a monitor, so virtual threads are not
+ * pinned. The deletion trigger is called without holding the lock, it may therefore lock the cache and call back
+ * into the expiry manager. An exception of the deletion trigger is logged and does not stop the periodic task.
+ */
 public class ExpiryManager<Key> {
 
-	private TreeMap<Long, Collection<Key>> expieries = new TreeMap<>();
-	private HashMap<Key, Long> expireDatesToKeys = new HashMap<>(); 
+	private static final System.Logger logger = System.getLogger(ExpiryManager.class.getName());
 	
-	private Consumer<Key> deletionTrigger;
-	
-	public ExpiryManager(final Consumer<Key> deletionTrigger, final ScheduledExecutorService scheduler) 
+	static final long TICK_MILLIS = 10;
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS-1;
+	private static final int LEVELS = 5;
+	// Ticks covered by the wheel, keys expiring later are stored in the last slot and cascaded until they are in range
+	private static final long MAX_TICKS = (1L << (SLOT_BITS*LEVELS))-1;
+
+	private static final class Node<Key>
+	{
+		final Key key;
+		final long deadline;
+		Node<Key> pred = null;
+		Node<Key> succ = null;
+		int level;
+		int slot;
+
+		Node (final Key key, final long expiry)
+		{
+			this.key=key;
+			// round up, so that keys are never expired early
+			this.deadline=(expiry+TICK_MILLIS-1)/TICK_MILLIS;
+		}
+	}
+
+	// Heads of the doubly linked lists of every slot
+	@SuppressWarnings("unchecked")
+	private final Node<Key>[][] wheel = (Node<Key>[][]) new Node<?>[LEVELS][SLOTS];
+	private final HashMap<Key, Node<Key>> nodes = new HashMap<>();
+
+	// Last tick which was processed
+	private long currentTick;
+
+	private volatile Consumer<Collection<Key>> deletionTrigger;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final ScheduledExecutorService scheduler;
+
+	private ScheduledFuture<?> ticker = null;
+
+	public ExpiryManager(final Consumer<Collection<Key>> deletionTrigger, final ScheduledExecutorService scheduler)
 	{
 		this.deletionTrigger=deletionTrigger;
 		this.scheduler=scheduler;
 	}
-	
-	public void setDeletionTrigger (final Consumer<Key> deletionTrigger)
+
+	public void setDeletionTrigger (final Consumer<Collection<Key>> deletionTrigger)
 	{
 		this.deletionTrigger=deletionTrigger;
 	}
-	
-	public synchronized void add (final Key key, long expiry)
+
+	public void add (final Key key, long expiry)
 	{
-		unsynchronized_remove(key);
-		expieries.compute(expiry, (k,v) -> {
-			if (v==null) {
-				v=new ArrayList<Key>();
+		lock.lock();
+		try {
+			if (ticker==null) {
+				currentTick = System.currentTimeMillis()/TICK_MILLIS;
+				ticker = scheduler.scheduleAtFixedRate(this::advance, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
 			}
-			v.add(key);
-			return v;
-		});
-		expireDatesToKeys.put(key, expiry);
-		scheduleNextItem();
+			unsynchronized_remove(key);
+			final var node = new Node<Key>(key, expiry);
+			nodes.put(key, node);
+			insert(node);
+		}
+		finally {
+			lock.unlock();
+		}
 	}
-	
-	public synchronized long getExpiryTime (final Key key)
+
+	public void remove (Key key)
 	{
-		final var e = expireDatesToKeys.get(key);
-		return e==null?0:e;
+		lock.lock();
+		try {
+			unsynchronized_remove(key);
+		}
+		finally {
+			lock.unlock();
+		}
 	}
-	
-	private void unsynchronized_remove (Key key)
+
+	/**
+	 * Removes several keys with a single lock
+	 */
+	public void removeAll (final Collection<Key> keys)
 	{
-		Long expiry = expireDatesToKeys.get(key);
-		if (expiry!=null) {
-			expieries.compute(expiry, (k,v) -> {
-				if (v!=null) {
-					v.remove(key);
-					if (v.isEmpty()) return null;
-				}
-				return v;
-			});
-			expireDatesToKeys.remove(key);
+		lock.lock();
+		try {
+			for (final var key: keys) unsynchronized_remove(key);
+		}
+		finally {
+			lock.unlock();
 		}
 	}
-	
-	public synchronized void remove (Key key)
+
+	private void unsynchronized_remove (final Key key)
 	{
-		unsynchronized_remove(key);
-		scheduleNextItem();
+		final var node = nodes.remove(key);
+		if (node!=null) unlink(node);
 	}
-	
+
 	/**
-	 * Create a single scheduler thread for all cache instances. By using an own thread factory it is possible so set a descriptive name
-	 * and the thread as a daemon thread to allow a graceful application shutdown
+	 * Puts a node into the slot of the lowest level which covers its deadline (relative to the current tick)
 	 */
-	private final ScheduledExecutorService scheduler;
-	
-	private ScheduledFuture<?> nextExecution=null;
-	private long nextExpireDate = 0;
-	
-	private void scheduleNextItem ()
+	private void insert (final Node<Key> node)
 	{
-		if (expieries.isEmpty()) return;
-		
-		final long newNextExpireDate = expieries.firstKey();
-
-		if (nextExpireDate!=newNextExpireDate) {
-			if (nextExecution!=null) nextExecution.cancel(false);
-			final long delay = newNextExpireDate-System.currentTimeMillis();
-			nextExecution = scheduler.schedule(this::deleteOldestEntry, delay>0?delay:0, TimeUnit.MILLISECONDS);
-			nextExpireDate=newNextExpireDate;
-			System.out.println ("Next expiry scheduled with delay "+delay+" ms");
+		long deadline = node.deadline;
+		if (deadline<=currentTick) {
+			// already due, expire with the next tick
+			deadline = currentTick+1;
+		}
+		else if (deadline-currentTick>MAX_TICKS) {
+			deadline = currentTick+MAX_TICKS;
 		}
+
+		final long delta = deadline-currentTick;
+		int level = 0;
+		while (level<LEVELS-1 && delta>=(1L << (SLOT_BITS*(level+1)))) ++level;
+
+		link(node, level, (int)((deadline >>> (SLOT_BITS*level)) & SLOT_MASK));
+	}
+
+	private void link (final Node<Key> node, final int level, final int slot)
+	{
+		node.level = level;
+		node.slot = slot;
+		node.pred = null;
+		node.succ = wheel[level][slot];
+		if (node.succ!=null) node.succ.pred = node;
+		wheel[level][slot] = node;
+	}
+
+	private void unlink (final Node<Key> node)
+	{
+		if (node.pred!=null) node.pred.succ = node.succ;
+		else wheel[node.level][node.slot] = node.succ;
+		if (node.succ!=null) node.succ.pred = node.pred;
+		node.pred = null;
+		node.succ = null;
+	}
+
+	/**
+	 * Removes all nodes from a slot
+	 *
+	 * @return the first node of the removed list
+	 */
+	private Node<Key> takeSlot (final int level, final int slot)
+	{
+		final var head = wheel[level][slot];
+		wheel[level][slot] = null;
+		return head;
+	}
+
+	/**
+	 * Processes all ticks up to now and calls the deletion trigger once with all expired keys. Runs periodically on the scheduler.
+	 */
+	private void advance ()
+	{
+		advance(System.currentTimeMillis());
 	}
 	
-	private synchronized void deleteOldestEntry ()
+	/**
+	 * Processes all ticks up to the given time and calls the deletion trigger once with all expired keys.
+	 * 
+	 * @param millis current time in milliseconds
+	 */
+	void advance (final long millis)
 	{
-		boolean done = false;
-		do {
-			var oldestEntry = expieries.firstEntry();
-			if (oldestEntry.getKey()<=System.currentTimeMillis()) {
-				var keys = new ArrayList<>(oldestEntry.getValue());
-				keys.forEach(deletionTrigger);
-				expieries.remove(oldestEntry.getKey());
+		final var expired = new ArrayList<Key>();
+		lock.lock();
+		try {
+			final long now = millis/TICK_MILLIS;
+			while (currentTick<now) {
+				++currentTick;
+
+				// Distribute the slots of the upper levels when the levels below wrapped around
+				for (int level=1;level<LEVELS;level++) {
+					if ((currentTick & ((1L << (SLOT_BITS*level))-1))!=0) break;
+					var node = takeSlot(level, (int)((currentTick >>> (SLOT_BITS*level)) & SLOT_MASK));
+					while (node!=null) {
+						final var succ = node.succ;
+						// keys due with this tick go to the slot which is processed next
+						if (node.deadline<=currentTick) link(node, 0, (int)(currentTick & SLOT_MASK));
+						else insert(node);
+						node = succ;
+					}
+				}
+
+				var node = takeSlot(0, (int)(currentTick & SLOT_MASK));
+				while (node!=null) {
+					final var succ = node.succ;
+					if (node.deadline<=currentTick) {
+						nodes.remove(node.key);
+						expired.add(node.key);
+						node.pred = null;
+						node.succ = null;
+					}
+					else {
+						// capped deadline of a key expiring beyond the range of the wheel
+						insert(node);
+					}
+					node = succ;
+				}
+			}
+
+			if (nodes.isEmpty() && ticker!=null) {
+				ticker.cancel(false);
+				ticker = null;
 			}
-			else { done = true; }
 		}
-		while (!done);
-		nextExecution=null;
-		scheduleNextItem();
+		finally {
+			lock.unlock();
+		}
+		// the trigger locks the cache, thus it must not be called while holding the lock
+		if (expired.isEmpty()) return;
+		try {
+			deletionTrigger.accept(expired);
+		}
+		catch (RuntimeException | Error e) {
+			// an exception would cancel the periodic task and no key would expire anymore
+			logger.log(System.Logger.Level.ERROR, "Removing "+expired.size()+" expired keys failed", e);
+		}
 	}
 }
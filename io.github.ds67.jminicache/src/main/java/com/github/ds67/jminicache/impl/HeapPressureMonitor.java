@@ -0,0 +1,119 @@
+package com.github.ds67.jminicache.impl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+/**
+ * Watches the heap usage after garbage collections and tells the registered caches to adapt their capacity.
+ *
+ * The monitor listens to the notifications of the garbage collectors and to the threshold notifications of the memory 
+ * bean. The thresholds of the memory pools are never changed, as they are global to the JVM and may be used by other code.
+ * With every notification the usage of the fullest pool after the last collection is passed to 
+ * {@link MiniCacheImpl#onHeapPressure(double)}. The caches are called on an own thread, never on the thread which sends 
+ * the notification nor on the expiry scheduler. Notifications which arrive while the caches are adapted are dropped.
+ *
+ * The caches are only weakly referenced, so a cache which is no longer used is dropped automatically. The monitor is
+ * created with the first registered cache.
+ */
+class HeapPressureMonitor implements NotificationListener {
+
+	// Usage of a heap pool after a collection at which the caches shrink
+	static final double HIGH_USAGE = 0.85;
+	// Usage of all heap pools after a collection below which the caches grow again
+	static final double LOW_USAGE = 0.7;
+
+	private static HeapPressureMonitor instance = null;
+
+	private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+	private final CopyOnWriteArrayList<WeakReference<MiniCacheImpl<?, ?>>> caches = new CopyOnWriteArrayList<>();
+	
+	// Evicting may take a while, thus it runs on an own thread which does not delay the expiry scheduler
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+		       final Thread t = Executors.defaultThreadFactory().newThread(r);
+               t.setDaemon(true);
+               t.setName("Minicache heap pressure");
+               return t;
+		}
+	});
+	private final AtomicBoolean pending = new AtomicBoolean(false);
+
+	private HeapPressureMonitor ()
+	{
+		for (final var pool: ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType()==MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) pools.add(pool);
+		}
+		if (ManagementFactory.getMemoryMXBean() instanceof NotificationEmitter) {
+			((NotificationEmitter)ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+		}
+		for (final var collector: ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (collector instanceof NotificationEmitter) {
+				((NotificationEmitter)collector).addNotificationListener(this, null, null);
+			}
+		}
+	}
+
+	private static synchronized HeapPressureMonitor getInstance ()
+	{
+		if (instance==null) instance = new HeapPressureMonitor();
+		return instance;
+	}
+
+	static synchronized void register (final MiniCacheImpl<?, ?> cache)
+	{
+		final var monitor = getInstance();
+		for (final var ref: monitor.caches) {
+			if (ref.get()==cache) return;
+		}
+		monitor.caches.add(new WeakReference<>(cache));
+	}
+
+	static synchronized void unregister (final MiniCacheImpl<?, ?> cache)
+	{
+		if (instance!=null) instance.caches.removeIf(ref -> ref.get()==null || ref.get()==cache);
+	}
+
+	/**
+	 * @return the highest share of a heap pool which was used after the last collection, 0 when unknown
+	 */
+	double usage ()
+	{
+		double usage = 0;
+		for (final var pool: pools) {
+			final MemoryUsage collectionUsage = pool.getCollectionUsage();
+			if (collectionUsage==null || collectionUsage.getMax()<=0) continue;
+			usage = Math.max(usage, (double)collectionUsage.getUsed()/collectionUsage.getMax());
+		}
+		return usage;
+	}
+
+	@Override
+	public void handleNotification (final Notification notification, final Object handback)
+	{
+		if (caches.isEmpty() || !pending.compareAndSet(false, true)) return;
+		executor.execute(() -> {
+			pending.set(false);
+			final double usage = usage();
+			for (final var ref: caches) {
+				final var cache = ref.get();
+				if (cache==null) caches.remove(ref);
+				else cache.onHeapPressure(usage);
+			}
+		});
+	}
+}
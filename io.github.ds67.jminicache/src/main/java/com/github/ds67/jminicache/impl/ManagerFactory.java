@@ -3,18 +3,38 @@ package com.github.ds67.jminicache.impl;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import com.github.ds67.jminicache.MiniCacheBuilder;
+import com.github.ds67.jminicache.impl.eviction.ARCManager;
+import com.github.ds67.jminicache.impl.eviction.EvictionManagerIF;
 import com.github.ds67.jminicache.impl.eviction.FIFOManager;
+import com.github.ds67.jminicache.impl.eviction.GreedyDualManager;
+import com.github.ds67.jminicache.impl.eviction.LFUManager;
 import com.github.ds67.jminicache.impl.eviction.LRUManager;
 import com.github.ds67.jminicache.impl.eviction.NoopManager;
+import com.github.ds67.jminicache.impl.eviction.S3FIFOManager;
+import com.github.ds67.jminicache.impl.eviction.SLRUManager;
+import com.github.ds67.jminicache.impl.eviction.SampledLRUManager;
+import com.github.ds67.jminicache.impl.eviction.SieveManager;
+import com.github.ds67.jminicache.impl.eviction.TinyLFUManager;
+import com.github.ds67.jminicache.impl.guard.ConcurrentReadGuard;
+import com.github.ds67.jminicache.impl.guard.GuardIF;
 import com.github.ds67.jminicache.impl.guard.ReadWriteGuard;
-import com.github.ds67.jminicache.impl.guard.SimpleLockGuard;
+import com.github.ds67.jminicache.impl.guard.StampedGuard;
+import com.github.ds67.jminicache.impl.payload.GreedyDualWrapper;
 import com.github.ds67.jminicache.impl.payload.KeySoftValuePayload;
 import com.github.ds67.jminicache.impl.payload.KeyValuePayload;
 import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+import com.github.ds67.jminicache.impl.payload.SampledPayload;
+import com.github.ds67.jminicache.impl.payload.SampledSoftPayload;
 import com.github.ds67.jminicache.impl.storage.MapBasedCacheManager;
 import com.github.ds67.jminicache.impl.storage.SoftManager;
 import com.github.ds67.jminicache.impl.storage.StorageManagerIF;
@@ -34,15 +54,89 @@ public class ManagerFactory {
 				return () -> new TreeMap<Key,Wrapper>();
 			}
 		}
+		else if (storagePolicy==MiniCacheBuilder.StoragePolicy.CONCURRENT_HASH_STORAGE) {
+			return () -> new ConcurrentHashMap<Key,Wrapper>();
+		}
 		else {
 			return () -> new HashMap<Key,Wrapper>();
 		}
 	}
+	
+	/**
+	 * Creates the guard for a storage. 
+	 * 
+	 * @param storagePolicy used storage policy
+	 * @param lockingPolicy requested locking policy
+	 * @param readsWithoutLock <code>true</code> when the eviction manager allows reads in parallel to writes. This is
+	 *        not the case when reads are recorded (even when they are buffered) 
+	 * @return guard to use for the storage
+	 */
+	private static GuardIF createGuard (MiniCacheBuilder.StoragePolicy storagePolicy, MiniCacheBuilder.LockingPolicy lockingPolicy, boolean readsWithoutLock)
+	{
+		if (readsWithoutLock && storagePolicy==MiniCacheBuilder.StoragePolicy.CONCURRENT_HASH_STORAGE) {
+			return new ConcurrentReadGuard();
+		}
+		else if (lockingPolicy==MiniCacheBuilder.LockingPolicy.OPTIMISTIC_LOCKING) {
+			// A tree map might run into endless loops when read while it is rebalanced, therefore only hash maps are read optimistically
+			return new StampedGuard(readsWithoutLock && storagePolicy==MiniCacheBuilder.StoragePolicy.HASH_MAP_STORAGE);
+		}
+		else {
+			return new ReadWriteGuard();
+		}
+	}
 
+	// Policies created by createListEvictionManager
+	private static final Set<MiniCacheBuilder.EvictionPolicy> LIST_POLICIES = EnumSet.of(
+			MiniCacheBuilder.EvictionPolicy.EVICTION_TINYLFU, 
+			MiniCacheBuilder.EvictionPolicy.EVICTION_ARC,
+			MiniCacheBuilder.EvictionPolicy.EVICTION_LFU,
+			MiniCacheBuilder.EvictionPolicy.EVICTION_SIEVE,
+			MiniCacheBuilder.EvictionPolicy.EVICTION_S3FIFO,
+			MiniCacheBuilder.EvictionPolicy.EVICTION_SLRU);
+	
+	/**
+	 * Creates the eviction manager of the policies which keep their entries in {@link ListWrapper} lists, besides
+	 * the LRU and FIFO policies.
+	 * 
+	 * @return eviction manager or <code>null</code> when the policy is not one of these policies
+	 */
+	private static <Key, Value, Wrapper extends ListWrapper<Key, Value, ? extends PayloadIF<Key, Value>>> EvictionManagerIF<Key, Value, Wrapper> createListEvictionManager (MiniCacheBuilder.EvictionPolicy policy,
+			                                                                                                                                                      BiFunction<Key, Value, Wrapper> constructor,
+			                                                                                                                                                      Function<Wrapper, Value> unWrapper)
+	{
+		switch (policy) {
+			case EVICTION_TINYLFU: return new TinyLFUManager<Key, Value, Wrapper>(constructor, unWrapper);
+			case EVICTION_ARC: return new ARCManager<Key, Value, Wrapper>(constructor, unWrapper);
+			case EVICTION_LFU: return new LFUManager<Key, Value, Wrapper>(constructor, unWrapper);
+			case EVICTION_SIEVE: return new SieveManager<Key, Value, Wrapper>(constructor, unWrapper);
+			case EVICTION_S3FIFO: return new S3FIFOManager<Key, Value, Wrapper>(constructor, unWrapper);
+			case EVICTION_SLRU: return new SLRUManager<Key, Value, Wrapper>(constructor, unWrapper);
+			default: return null;
+		}
+	}
+	
+	/**
+	 * @return <code>true</code> when the eviction manager of the policy changes its structures on reads, thus reads can not
+	 *         run in parallel to writes
+	 */
+	private static boolean recordsReads (MiniCacheBuilder.EvictionPolicy policy)
+	{
+		switch (policy) {
+			case EVICTION_TINYLFU:
+			case EVICTION_ARC:
+			case EVICTION_LFU:
+			case EVICTION_SLRU:
+				return true;
+			default:
+				return false;
+		}
+	}
+	
 	public static <Key, Value> StorageManagerIF<Key, Value, ?> createCacheManager (MiniCacheBuilder.EvictionPolicy policy,
 																				   MiniCacheBuilder.StoragePolicy storagePolicy,
 																				   Comparator<Key> comparator,
-			                                                                       boolean weakKeys)
+			                                                                       boolean weakKeys,
+			                                                                       MiniCacheBuilder.LockingPolicy lockingPolicy)
 	{
 		
 		
@@ -56,11 +150,39 @@ public class ManagerFactory {
 				(w) -> w.getPayload()
 			);
 			
-			return new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeyValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), new SimpleLockGuard(), lruEvictionManager);
+			return new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeyValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, false), lruEvictionManager);
 		}
 		else if (weakKeys && policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)) {
 			final var lruEvictionManager = new LRUManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(null, null);
-			final var cacheManager = new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), new SimpleLockGuard(),  lruEvictionManager);
+			final var cacheManager = new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, false),  lruEvictionManager);
+			
+			return new SoftManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(
+					cacheManager, 
+					// Function to wrap the payload
+					(k,v,q) -> {
+						return new ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>(new KeySoftValuePayload<Key,Value>(k,v,q));
+					},
+					// function to unwrap the payload
+					(w) -> {
+						return w.getPayload();
+					}
+			);
+		}
+		else if (!weakKeys && LIST_POLICIES.contains(policy)) {
+			final var evictionManager = ManagerFactory.<Key, Value, ListWrapper<Key, Value, KeyValuePayload<Key,Value>>>createListEvictionManager(policy,
+				// function to wrap	
+				(k,v) -> {
+				     return new ListWrapper<Key, Value, KeyValuePayload<Key,Value>>(new KeyValuePayload<Key,Value>(k,v));
+			    },
+				// function to unwrap
+				(w) -> w.getPayload()
+			);
+			
+			return new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeyValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, !recordsReads(policy)), evictionManager);
+		}
+		else if (weakKeys && LIST_POLICIES.contains(policy)) {
+			final var evictionManager = ManagerFactory.<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>createListEvictionManager(policy, null, (w) -> w.getPayload());
+			final var cacheManager = new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, !recordsReads(policy)), evictionManager);
 			
 			return new SoftManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(
 					cacheManager, 
@@ -74,6 +196,58 @@ public class ManagerFactory {
 					}
 			);
 		}
+		else if (!weakKeys && policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_GDSF)) {
+			final var evictionManager = new GreedyDualManager<Key, Value, GreedyDualWrapper<Key, Value, KeyValuePayload<Key,Value>>>(
+				// function to wrap	
+				(k,v) -> {
+				     return new GreedyDualWrapper<Key, Value, KeyValuePayload<Key,Value>>(new KeyValuePayload<Key,Value>(k,v));
+			    },
+				// function to unwrap
+				(w) -> w.getPayload()
+			);
+			
+			return new MapBasedCacheManager<Key, Value, GreedyDualWrapper<Key, Value, KeyValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, false), evictionManager);
+		}
+		else if (weakKeys && policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_GDSF)) {
+			final var evictionManager = new GreedyDualManager<Key, Value, GreedyDualWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(null, (w) -> w.getPayload());
+			final var cacheManager = new MapBasedCacheManager<Key, Value, GreedyDualWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, false), evictionManager);
+			
+			return new SoftManager<Key, Value, GreedyDualWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(
+					cacheManager, 
+					// Function to wrap the payload
+					(k,v,q) -> {
+						return new GreedyDualWrapper<Key, Value, KeySoftValuePayload<Key,Value>>(new KeySoftValuePayload<Key,Value>(k,v,q));
+					},
+					// function to unwrap the payload
+					(w) -> {
+						return w.getPayload();
+					}
+			);
+		}
+		else if (!weakKeys && policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_SAMPLED_LRU)) {
+			// The payload carries the access time, no list wrapper is needed
+			final var evictionManager = new SampledLRUManager<Key, Value, SampledPayload<Key,Value>>(
+				(k,v) -> new SampledPayload<Key,Value>(k,v), 
+				(w) -> w.getPayload());
+			
+			return new MapBasedCacheManager<Key, Value, SampledPayload<Key,Value>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, true), evictionManager);
+		}
+		else if (weakKeys && policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_SAMPLED_LRU)) {
+			final var evictionManager = new SampledLRUManager<Key, Value, SampledSoftPayload<Key,Value>>(null, (w) -> w.getPayload());
+			final var cacheManager = new MapBasedCacheManager<Key, Value, SampledSoftPayload<Key,Value>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, true), evictionManager);
+			
+			return new SoftManager<Key, Value, SampledSoftPayload<Key,Value>>(
+					cacheManager, 
+					// Function to wrap the payload
+					(k,v,q) -> {
+						return new SampledSoftPayload<Key,Value>(k,v,q);
+					},
+					// function to unwrap the payload
+					(w) -> {
+						return w.getPayload();
+					}
+			);
+		}
 		else if (!weakKeys && policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)) {
 			final var evictionManager = new FIFOManager<Key, Value, ListWrapper<Key, Value, KeyValuePayload<Key,Value>>>(
 				// Function to wrap the payload	
@@ -86,7 +260,7 @@ public class ManagerFactory {
 				}
 			);
 			
-			return new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeyValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), new ReadWriteGuard(), evictionManager);
+			return new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeyValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, true), evictionManager);
 		}
 		else if (weakKeys && policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)) {
 			final var evictionManager = new FIFOManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(
@@ -98,7 +272,7 @@ public class ManagerFactory {
 				}
 			);
 			
-			final var cacheManager = new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), new ReadWriteGuard(), evictionManager);
+			final var cacheManager = new MapBasedCacheManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, true), evictionManager);
 			
 			return new SoftManager<Key, Value, ListWrapper<Key, Value, KeySoftValuePayload<Key,Value>>>(
 					cacheManager, 
@@ -115,8 +289,8 @@ public class ManagerFactory {
 		else if (policy.equals(MiniCacheBuilder.EvictionPolicy.EVICTION_NONE)) {
 			
 			if (weakKeys) {
-		    	final var evictionManager = new NoopManager<Key, Value, KeySoftValuePayload<Key,Value>>(null, null);	    	
-				final var cacheManager = new MapBasedCacheManager<Key, Value, KeySoftValuePayload<Key,Value>>(mapCreatorFunction(storagePolicy, comparator), new ReadWriteGuard(),  evictionManager);
+		    	final var evictionManager = new NoopManager<Key, Value, KeySoftValuePayload<Key,Value>>(null, (w) -> w.getPayload());	    	
+				final var cacheManager = new MapBasedCacheManager<Key, Value, KeySoftValuePayload<Key,Value>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, true),  evictionManager);
 				
 				return new SoftManager<Key, Value, KeySoftValuePayload<Key,Value>>(
 						cacheManager, 
@@ -130,10 +304,13 @@ public class ManagerFactory {
 						}
 				);
 			}
-		    else {
-				final var evictionManager = NoopManager.<Key, Value>ofIdentity();
-				return new MapBasedCacheManager<Key, Value, Value>(mapCreatorFunction(storagePolicy, comparator), new ReadWriteGuard(), evictionManager);
-		    }
+			else {
+				// Values are wrapped to store the meta data of an entry. Additionally a concurrent hash map does not accept null values
+				final var evictionManager = new NoopManager<Key, Value, KeyValuePayload<Key,Value>>(
+						(k,v) -> new KeyValuePayload<Key,Value>(k,v), 
+						(w) -> w.getPayload());
+				return new MapBasedCacheManager<Key, Value, KeyValuePayload<Key,Value>>(mapCreatorFunction(storagePolicy, comparator), createGuard(storagePolicy, lockingPolicy, true), evictionManager);
+			}
 		}
 		
 		return null;
@@ -3,28 +3,38 @@ package com.github.ds67.jminicache.impl;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Flow.Subscriber;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.SubmissionPublisher;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
+import com.github.ds67.jminicache.AsyncValueSupplier;
+import com.github.ds67.jminicache.BulkValueSupplier;
 import com.github.ds67.jminicache.CacheChangeEvent;
+import com.github.ds67.jminicache.CacheWriter;
+import com.github.ds67.jminicache.Expiry;
 import com.github.ds67.jminicache.MiniCache;
 import com.github.ds67.jminicache.MiniCacheBuilder;
 import com.github.ds67.jminicache.ValueSupplier;
 import com.github.ds67.jminicache.ValueWithExpiry;
+import com.github.ds67.jminicache.Weigher;
 import com.github.ds67.jminicache.impl.guard.GuardIF;
 import com.github.ds67.jminicache.impl.guard.LocalGuard;
-import com.github.ds67.jminicache.impl.storage.StorageManagerIF;
+import com.github.ds67.jminicache.impl.guard.SegmentedGuard;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
 import com.github.ds67.jminicache.plugin.AsynchronousSubscriberPlugin;
 import com.github.ds67.jminicache.plugin.Plugin;
 import com.github.ds67.jminicache.plugin.PluginManager;
@@ -32,33 +42,100 @@ import com.github.ds67.jminicache.plugin.StatisticsPlugin;
 
 public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 {			
+	private static final System.Logger logger = System.getLogger(MiniCacheImpl.class.getName());
+	
 	public MiniCacheImpl (int maxSize, 
 			              MiniCacheBuilder.EvictionPolicy evictionPolicy,
 			              MiniCacheBuilder.StoragePolicy storagePolicy,
 			              boolean useWeakKey,
 			              boolean useExpiry,
-			              Comparator<Key> keyComparator)
+			              Comparator<Key> keyComparator,
+			              int concurrencyLevel,
+			              MiniCacheBuilder.LockingPolicy lockingPolicy)
 	{
-		manager = ManagerFactory.createCacheManager(evictionPolicy, storagePolicy, keyComparator, useWeakKey);
-		guard = manager.getGuard();		
+		@SuppressWarnings("unchecked")
+		final var segments = (Segment<Key, Value>[]) new Segment<?, ?>[Math.max(1, concurrencyLevel)];
+		final var guards = new GuardIF[segments.length];
+		for (int i=0;i<segments.length;i++) {
+			segments[i] = new Segment<Key, Value>(ManagerFactory.createCacheManager(evictionPolicy, storagePolicy, keyComparator, useWeakKey, lockingPolicy));
+			guards[i] = segments[i].guard;
+		}
+		this.segments = segments;
+		// A single segment cache uses the guard of the segment directly to avoid any overhead
+		guard = segments.length==1?guards[0]:new SegmentedGuard(guards);
 		setMaxSize(maxSize);
 		if (useExpiry) {
 			expiryManager = new ExpiryManager<Key>(this::expired, MiniCacheBuilder.getSchedulerService());
 		}
 	}
 
-	private StorageManagerIF<Key, Value, ?> manager;
-	private Function<Key, ValueWithExpiry<Value>> valueWithExpiryFactory = null;
+	private final Segment<Key, Value>[] segments;
+	// Configuration is read without locks, volatile fields avoid monitors which would pin virtual threads 
+	private volatile Function<Key, ValueWithExpiry<Value>> valueWithExpiryFactory = null;
+	private volatile Function<Key, CompletableFuture<ValueWithExpiry<Value>>> asyncValueFactory = null;
+	private volatile Executor loaderExecutor = ForkJoinPool.commonPool();
+	private volatile CacheWriter<Key, Value> writer = null;
+	private volatile Function<Key, ValueWithExpiry<Value>> refreshMethod = null;
+	private volatile Expiry<Key, Value> expiryPolicy = null;
+	private volatile Weigher<Key, Value> weigher = null;
 	private ExpiryManager<Key> expiryManager = null;
 	
+	// Guard over all segments, used for operations which need a consistent view of the whole cache
 	private final GuardIF guard;
 	
-	private final Map<Key,ReadWriteLock> creationGuards = new HashMap<>();
+	/**
+	 * Determines the segment which is responsible for a key. The hash code is mixed by a multiplication with the golden 
+	 * ratio and the segment is taken from the high bits of the product, so that small or aligned keys (e.g. integers 
+	 * which are all multiples of the segment count) are spread over all segments. 
+	 */
+	private Segment<Key, Value> segmentFor (final Key key)
+	{
+		if (segments.length==1) return segments[0];
+		final int h = key==null?0:key.hashCode();
+		final long mixed = (h*0x9E3779B9) & 0xffffffffL;
+		return segments[(int)((mixed*segments.length) >>> 32)];
+	}
+	
+	/**
+	 * Distributes items to the segments which are responsible for their keys. Segments without items are left out.
+	 */
+	private <E> Map<Segment<Key, Value>, Collection<E>> partitionBySegment (final Collection<E> items, final Function<E, Key> keyOf)
+	{
+		if (segments.length==1) return items.isEmpty()?Map.of():Map.of(segments[0], items);
+		
+		final Map<Segment<Key, Value>, Collection<E>> partitions = new HashMap<>();
+		for (final var item: items) {
+			partitions.computeIfAbsent(segmentFor(keyOf.apply(item)), (s) -> new ArrayList<E>()).add(item);
+		}
+		return partitions;
+	}
+	
+	/**
+	 * Distributes items to their segments and calls the action for every item while the segment of the item is write locked.
+	 * Every segment is locked only once. When other threads are waiting for the segment the lock is yielded every 
+	 * <code>yieldAfter</code> items.
+	 */
+	private <E> void writeLockedPerSegment (final Collection<E> items, final Function<E, Key> keyOf, final int yieldAfter, final BiConsumer<Segment<Key, Value>, E> action)
+	{
+		partitionBySegment(items, keyOf).forEach((segment, segmentItems) -> {
+			segment.guard.writeLocked(() -> {
+				int insertedInARow = 0;
+				for (final var item: segmentItems) {
+					action.accept(segment, item);
+					if (++insertedInARow > yieldAfter) {
+						insertedInARow=0;
+						// yield when readers are waiting
+						segment.guard.yield();
+					}
+				}
+			});
+		});
+	}
 	
 	@Override
 	public <E extends Throwable> Value get (final Key key, ValueSupplier<ValueWithExpiry<Value>, E> supplier) throws E
 	{
-		// use a dedicated function for doing the get and extract the get plugin notifications as internal_get might be called recursive
+		// use a dedicated function for doing the get and extract the get plugin notifications
 		plugins.onBeforeGet(key);
 		final var result = internal_get(key, supplier);
 		plugins.onAfterGet(key, result);
@@ -67,11 +144,17 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	
 	protected <E extends Throwable> Value internal_get (final Key key, ValueSupplier<ValueWithExpiry<Value>, E> supplier) throws E
 	{
-		LocalGuard lGuard = new LocalGuard(guard);
+		final var segment = segmentFor(key);
+		final var optimistic_value = optimistic_fetch(segment, key);
+		if (optimistic_value!=null) {
+			return optimistic_value;
+		}
+		
+		LocalGuard lGuard = new LocalGuard(segment.guard);
 		
 		try {
 			lGuard.lockRead();
-			var available_value = unsynchronized_fetch(key);
+			var available_value = unsynchronized_fetch(segment, key);
 			if (available_value!=null) {
 				return available_value;
 			}
@@ -81,49 +164,43 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 				return null;
 			}
 			
-			var promoted = lGuard.promoteLock();
-			if (promoted) {
-				// Recheck if value is already there. Between last check and lock promotion somebody else might
-				// have inserted the key. This section can be skipped when no promotion took place and therefore
-				// the read was already done with an exclusive lock
-				available_value = unsynchronized_fetch(key);
-				if (available_value!=null) {
-					return available_value;
+			// An atomic promotion guarantees that nobody else inserted the key in between
+			if (!lGuard.tryPromoteLock()) {
+				var promoted = lGuard.promoteLock();
+				if (promoted) {
+					// Recheck if value is already there. Between last check and lock promotion somebody else might
+					// have inserted the key. This section can be skipped when no promotion took place and therefore
+					// the read was already done with an exclusive lock
+					available_value = unsynchronized_fetch(segment, key);
+					if (available_value!=null) {
+						return available_value;
+					}
 				}
 			}
 			
-			var localGuard = creationGuards.get(key);
-			if (localGuard!=null) {
-				// somebody else called supplier, simple wait until finished
+			final var running = segment.loading.get(key);
+			if (running!=null) {
+				// somebody else called the supplier, wait for its result
 				lGuard.unlock();
 				plugins.onValueCreateCollision(key);
-				try {
-					localGuard.readLock().lock();
-					return internal_get(key, supplier);
-				}
-				finally {
-					localGuard.readLock().unlock();
-				}
-			}
-			else {
-				localGuard = new ReentrantReadWriteLock();
-				localGuard.writeLock().lock();
-				creationGuards.put(key, localGuard);
+				return awaitLoading(running);
 			}
 			
+			final var loading = new CompletableFuture<Value>();
+			segment.loading.put(key, loading);
 			lGuard.unlock ();
 		
+			final ValueWithExpiry<Value> result;
+			final long start = System.nanoTime();
 			try {
-				final var result = supplier.get();
-				
-				lGuard.lockWrite();
-				unsynchronized_set(key,result.getValue(),result.getExpiry());
-				return result.getValue();
+				result = supplier.get();
 			}
-			finally {
-				localGuard.writeLock().unlock();
-				creationGuards.remove(key);
+			catch (Throwable t) {
+				finishLoading(segment, key, loading, null, 0, t);
+				throw t;
 			}
+			finishLoading(segment, key, loading, result, System.nanoTime()-start, null);
+			return result.getValue();
 		}
 		finally 
 		{
@@ -131,6 +208,240 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 		}
 	}
 	
+	@Override
+	public <E extends Throwable> Map<Key, Value> getAll (final Collection<Key> keys, final BulkValueSupplier<Key, Value, E> supplier) throws E
+	{
+		final var requestedKeys = new LinkedHashSet<Key>(keys);
+		requestedKeys.forEach(plugins::onBeforeGet);
+		
+		final var result = new HashMap<Key, Value>();
+		final var running = new HashMap<Key, CompletableFuture<Value>>();
+		final var loading = new HashMap<Key, CompletableFuture<Value>>();
+		// Look up the hits without lock when supported by the segment or with one read lock per segment
+		final var misses = new ArrayList<Key>();
+		partitionBySegment(requestedKeys, Function.identity()).forEach((segment, segmentKeys) -> {
+			final var candidates = new ArrayList<Key>();
+			for (final var key: segmentKeys) {
+				final var value = optimistic_fetch(segment, key);
+				if (value!=null) result.put(key, value);
+				else candidates.add(key);
+			}
+			if (candidates.isEmpty()) return;
+			segment.guard.readLocked(() -> {
+				for (final var key: candidates) {
+					// misses are reported when they are looked up again with the write lock
+					if (isLive(segment.manager.peekEntry(key))) result.put(key, unsynchronized_fetch(segment, key));
+					else misses.add(key);
+				}
+			});
+		});
+		// Only the segments with misses are write locked to register the keys to load
+		writeLockedPerSegment(misses, Function.identity(), 100, (segment, key) -> {
+			final var value = unsynchronized_fetch(segment, key);
+			if (value!=null || isLive(segment.manager.peekEntry(key))) {
+				result.put(key, value);
+				return;
+			}
+			final var runningLoad = segment.loading.get(key);
+			if (runningLoad!=null) {
+				running.put(key, runningLoad);
+			}
+			else {
+				final var load = new CompletableFuture<Value>();
+				segment.loading.put(key, load);
+				loading.put(key, load);
+			}
+		});
+		running.keySet().forEach(plugins::onValueCreateCollision);
+		
+		if (!loading.isEmpty()) {
+			final Map<Key, ValueWithExpiry<Value>> loaded;
+			final long start = System.nanoTime();
+			try {
+				loaded = supplier.get(Collections.unmodifiableSet(loading.keySet()));
+			}
+			catch (Throwable t) {
+				finishLoadingAll(loading, null, 0, t);
+				throw t;
+			}
+			// the load time of a single key is not known, thus the time is shared among all loaded keys
+			finishLoadingAll(loading, loaded==null?Collections.emptyMap():loaded, (System.nanoTime()-start)/loading.size(), null);
+			loading.forEach((key, load) -> result.put(key, load.getNow(null)));
+		}
+		for (final var entry: running.entrySet()) {
+			result.put(entry.getKey(), awaitLoading(entry.getValue()));
+		}
+		
+		requestedKeys.forEach((key) -> plugins.onAfterGet(key, result.get(key)));
+		return result;
+	}
+	
+	/**
+	 * Bulk version of {@link #finishLoading(Segment, Object, CompletableFuture, ValueWithExpiry, long, Throwable)}. All loaded values are
+	 * stored with one lock per segment. 
+	 * 
+	 * @param loading futures of the keys which were loaded
+	 * @param results loaded values or <code>null</code> when loading failed
+	 * @param loadTime time in nanoseconds the supplier took per value
+	 * @param failure exception of the supplier or <code>null</code> when the values were loaded
+	 */
+	private void finishLoadingAll (final Map<Key, CompletableFuture<Value>> loading, final Map<Key, ValueWithExpiry<Value>> results, final long loadTime, final Throwable failure)
+	{
+		try {
+			writeLockedPerSegment(loading.keySet(), Function.identity(), 100, (segment, key) -> {
+				segment.loading.remove(key);
+				final var result = failure==null?results.get(key):null;
+				if (result!=null) {
+					unsynchronized_set(segment, key, result.getValue(), result.getExpiry(), result.getRefreshAfter(), loadTime);
+				}
+			});
+		}
+		catch (RuntimeException | Error e) {
+			// waiting threads must never wait forever, thus unregister all keys which were not handled yet
+			loading.forEach((key, load) -> {
+				final var segment = segmentFor(key);
+				segment.guard.writeLocked(() -> segment.loading.remove(key, load));
+				load.completeExceptionally(failure==null?e:failure);
+			});
+			throw e;
+		}
+		loading.forEach((key, load) -> {
+			if (failure!=null) {
+				load.completeExceptionally(failure);
+			}
+			else {
+				final var result = results.get(key);
+				load.complete(result==null?null:result.getValue());
+			}
+		});
+	}
+	
+	@Override
+	public CompletableFuture<Value> getAsync (final Key key, final AsyncValueSupplier<ValueWithExpiry<Value>> supplier)
+	{
+		plugins.onBeforeGet(key);
+		final var segment = segmentFor(key);
+		final var optimistic_value = optimistic_fetch(segment, key);
+		if (optimistic_value!=null) {
+			plugins.onAfterGet(key, optimistic_value);
+			return CompletableFuture.completedFuture(optimistic_value);
+		}
+		
+		final CompletableFuture<Value> result;
+		LocalGuard lGuard = new LocalGuard(segment.guard);
+		try {
+			lGuard.lockRead();
+			var available_value = unsynchronized_fetch(segment, key);
+			if (available_value==null && supplier!=null && !lGuard.tryPromoteLock() && lGuard.promoteLock()) {
+				available_value = unsynchronized_fetch(segment, key);
+			}
+			if (available_value!=null || supplier==null) {
+				plugins.onAfterGet(key, available_value);
+				return CompletableFuture.completedFuture(available_value);
+			}
+			
+			final var running = segment.loading.get(key);
+			if (running!=null) {
+				lGuard.unlock();
+				plugins.onValueCreateCollision(key);
+				result = running;
+			}
+			else {
+				final var loading = new CompletableFuture<Value>();
+				segment.loading.put(key, loading);
+				lGuard.unlock();
+				result = loading;
+				
+				CompletableFuture<ValueWithExpiry<Value>> supplied;
+				final long start = System.nanoTime();
+				try {
+					supplied = supplier.get(loaderExecutor);
+					// a missing future is handled like a failing supplier, otherwise the key stayed registered forever
+					if (supplied==null) throw new NullPointerException("Supplier returned no future for key "+key);
+				}
+				catch (Throwable t) {
+					supplied = CompletableFuture.failedFuture(t);
+				}
+				supplied.whenComplete((value, t) -> {
+					finishLoading(segment, key, loading, value, System.nanoTime()-start, t instanceof CompletionException?t.getCause():t);
+				});
+			}
+		}
+		finally {
+			lGuard.unlock();
+		}
+		
+		// a dependent future, thus callers cannot complete the future shared by all waiting callers
+		return result.thenApply((value) -> {
+			plugins.onAfterGet(key, value);
+			return value;
+		});
+	}
+	
+	@Override
+	public CompletableFuture<Value> getAsync (final Key key)
+	{
+		final var asyncFactory = asyncValueFactory;
+		if (asyncFactory!=null) {
+			return getAsync(key, (executor) -> asyncFactory.apply(key));
+		}
+		final var factory = valueWithExpiryFactory;
+		if (factory!=null) {
+			return getAsync(key, AsyncValueSupplier.of(() -> factory.apply(key)));
+		}
+		return CompletableFuture.completedFuture(fetch(key));
+	}
+	
+	/**
+	 * Stores a loaded value and publishes it to all threads waiting for the key. Must be called without holding a lock.
+	 * 
+	 * The future is completed after the lock is released, thus waiting threads never execute while the cache is locked.
+	 * 
+	 * @param result loaded value or <code>null</code> when loading failed
+	 * @param loadTime time in nanoseconds the supplier took
+	 * @param failure exception of the supplier or <code>null</code> when the value was loaded
+	 */
+	private void finishLoading (final Segment<Key, Value> segment, final Key key, final CompletableFuture<Value> loading, final ValueWithExpiry<Value> result, final long loadTime, Throwable failure)
+	{
+		try {
+			segment.guard.writeLocked(() -> {
+				try {
+					if (failure==null) {
+						unsynchronized_set(segment, key, result.getValue(), result.getExpiry(), result.getRefreshAfter(), loadTime);
+					}
+				}
+				finally {
+					segment.loading.remove(key);
+				}
+			});
+		}
+		catch (RuntimeException | Error e) {
+			loading.completeExceptionally(failure==null?e:failure);
+			throw e;
+		}
+		if (failure==null) loading.complete(result.getValue());
+		else loading.completeExceptionally(failure);
+	}
+	
+	/**
+	 * Waits for a value which is loaded by another thread.
+	 * 
+	 * @param <E> Exception type of the supplier
+	 * @param loading future which is completed by the loading thread
+	 * @return the loaded value
+	 * @throws E the exception thrown by the supplier of the loading thread
+	 */
+	@SuppressWarnings("unchecked")
+	private static <Value, E extends Throwable> Value awaitLoading (final CompletableFuture<Value> loading) throws E
+	{
+		try {
+			return loading.join();
+		}
+		catch (CompletionException e) {
+			throw (E)e.getCause();
+		}
+	}
+	
 	@Override
 	public <E extends Throwable> Value get (final Key key, ValueSupplier<Value,E> supplier, long expireDate) throws E 
 	{
@@ -139,35 +450,136 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 		});
 	}
     
-	protected void unsynchronized_set (final Key key, final Value value, final long expiry)
+	protected void unsynchronized_set (final Segment<Key, Value> segment, final Key key, final Value value, final long expiry)
+	{
+		unsynchronized_set(segment, key, value, expiry, 0);
+	}
+	
+	protected void unsynchronized_set (final Segment<Key, Value> segment, final Key key, final Value value, final long expiry, final long refreshAfter)
 	{
-		if (expiryManager!=null && expiry>0) {			
-			expiryManager.add(key, expiry);
+		unsynchronized_set(segment, key, value, expiry, refreshAfter, 0);
+	}
+	
+	/**
+	 * @param loadTime time in nanoseconds the value took to load, 0 when the value was not loaded by the cache
+	 */
+	protected void unsynchronized_set (final Segment<Key, Value> segment, final Key key, final Value value, final long expiry, final long refreshAfter, final long loadTime)
+	{
+		// An explicit expiry date takes precedence over the expiry policy
+		final long effectiveExpiry = expiry>0?expiry:policyExpiry(segment, key, value);
+		if (expiryManager!=null && effectiveExpiry>0) {			
+			expiryManager.add(key, effectiveExpiry);
 		}
 		
 		plugins.onBeforeSet(key, value);
-		final var previousValue = manager.put(key, value, null);	
+		// Without an expiry manager expiry dates are ignored
+		final long inlineExpiry = expiryManager==null?0:effectiveExpiry;
+		final var w = weigher;
+		final int weight = w==null?1:Math.max(0, w.weigh(key, value));
+		final var previousValue = segment.manager.putEntry(key, value, (entry) -> {
+			entry.setExpiry(inlineExpiry);
+			entry.setWeight(weight);
+			entry.setRefreshAfter(refreshAfter);
+			entry.setLoadTime(loadTime);
+		});	
 		plugins.onAfterSet(key, previousValue, value);
 		
-		unsynchronized_shrink();
+		unsynchronized_shrink(segment);
 	}
 
+	/**
+	 * Calculates the expiry date of a new or updated value from the expiry policy.
+	 * 
+	 * @return expiry date or 0 when the value does not expire
+	 */
+	private long policyExpiry (final Segment<Key, Value> segment, final Key key, final Value value)
+	{
+		final var policy = expiryPolicy;
+		if (policy==null || expiryManager==null) return 0;
+		
+		final long now = System.currentTimeMillis();
+		final var previous = segment.manager.peekEntry(key);
+		final long duration = previous==null
+				?policy.expireAfterCreate(key, value, now)
+				:policy.expireAfterUpdate(key, value, now, remainingDuration(previous.getExpiry(), now));
+		return expiryDate(duration, now);
+	}
+	
+	private static long remainingDuration (final long expiry, final long now)
+	{
+		return expiry==0?Expiry.NEVER:Math.max(0, expiry-now);
+	}
+	
+	private static long expiryDate (final long duration, final long now)
+	{
+		if (duration>=Expiry.NEVER-now) return 0;
+		return now+Math.max(0, duration);
+	}
+	
+	/**
+	 * Moves the expiry date of an entry after a read as requested by the expiry policy. 
+	 * 
+	 * Called with a read lock or even without a lock, thus only the inline expiry date of the entry is changed. The 
+	 * expiry manager still fires at the former date and reschedules the key then (see {@link #expired(Object)}). Only 
+	 * an expiry date which was brought forward must be passed to the expiry manager. 
+	 */
+	private void slideExpiry (final Key key, final PayloadIF<Key, Value> entry)
+	{
+		final var policy = expiryPolicy;
+		if (policy==null || expiryManager==null) return;
+		
+		final long now = System.currentTimeMillis();
+		final long expiry = entry.getExpiry();
+		final long newExpiry = expiryDate(policy.expireAfterRead(key, entry.getPayload(), now, remainingDuration(expiry, now)), now);
+		if (newExpiry==expiry) return;
+		
+		entry.setExpiry(newExpiry);
+		if (newExpiry>0 && (expiry==0 || newExpiry<expiry)) expiryManager.add(key, newExpiry);
+	}
+	
+	/**
+	 * Sets a value which was changed by the user of the cache. Such changes are passed to the cache writer first, 
+	 * when the writer fails the cache is not changed.
+	 */
+	private void unsynchronized_setAndWrite (final Segment<Key, Value> segment, final Key key, final Value value, final long expiry, final long refreshAfter)
+	{
+		final var w = writer;
+		if (w!=null) w.write(key, value);
+		unsynchronized_set(segment, key, value, expiry, refreshAfter);
+	}
+	
+	/**
+	 * Lets the thread which changed the cache wait for a write behind writer whose queue is full. Must be called after 
+	 * the locks of the cache are released.
+	 */
+	private void applyBackPressure ()
+	{
+		final var w = writer;
+		if (w instanceof WriteBehindWriter) ((WriteBehindWriter<Key, Value>)w).applyBackPressure();
+	}
+	
 	@Override
 	public void set (final Key key, final Value value)	
 	{
-		guard.writeLocked(() -> unsynchronized_set(key,value,0));
+		final var segment = segmentFor(key);
+		segment.guard.writeLocked(() -> unsynchronized_setAndWrite(segment,key,value,0,0));
+		applyBackPressure();
 	}
 	
 	@Override
 	public void set (final Key key, final ValueWithExpiry<Value> ve)	
 	{
-		guard.writeLocked(() -> unsynchronized_set(key,ve.getValue(),ve.getExpiry()));
+		final var segment = segmentFor(key);
+		segment.guard.writeLocked(() -> unsynchronized_setAndWrite(segment,key,ve.getValue(),ve.getExpiry(),ve.getRefreshAfter()));
+		applyBackPressure();
 	}
 	
 	@Override
 	public void set (final Key key, final Value value, long expiryDate)	
 	{
-		guard.writeLocked(() -> unsynchronized_set(key,value,expiryDate));
+		final var segment = segmentFor(key);
+		segment.guard.writeLocked(() -> unsynchronized_setAndWrite(segment,key,value,expiryDate,0));
+		applyBackPressure();
 	}
 
 	@Override
@@ -185,35 +597,19 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	@Override
 	public void set (final Set<Map.Entry<Key, Value>> entries, long expiryDate)
 	{	
-		guard.writeLocked(() -> {
-			int insertedInARow = 0;
-			for (final var entry: entries) {
-				unsynchronized_set(entry.getKey(), entry.getValue(), expiryDate);
-				if (++insertedInARow > 100) {
-					insertedInARow=0;
-					// yield when readers are waiting
-					guard.yield();
-				}
-			}			
+		writeLockedPerSegment(entries, Map.Entry::getKey, 100, (segment, entry) -> {
+			unsynchronized_setAndWrite(segment, entry.getKey(), entry.getValue(), expiryDate, 0);
 		});
+		applyBackPressure();
 	}	
 	
 	@Override
 	public void set (final Map<Key, ValueWithExpiry<Value>> content)
 	{
-		final var entries = content.entrySet();
-		
-		guard.writeLocked(() -> {
-			int insertedInARow = 0;
-			for (final var entry: entries) {
-				unsynchronized_set(entry.getKey(), entry.getValue().getValue(), entry.getValue().getExpiry());
-				if (++insertedInARow > 20) {
-					insertedInARow=0;
-					// yield when readers are waiting
-					guard.yield();
-				}
-			}			
+		writeLockedPerSegment(content.entrySet(), Map.Entry::getKey, 20, (segment, entry) -> {
+			unsynchronized_setAndWrite(segment, entry.getKey(), entry.getValue().getValue(), entry.getValue().getExpiry(), entry.getValue().getRefreshAfter());
 		});
+		applyBackPressure();
 	}
 
 	@Override
@@ -222,32 +618,131 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 		if (valueWithExpiryFactory!=null) {
 			return get(key, () -> valueWithExpiryFactory.apply(key));
 		}	
+		if (asyncValueFactory!=null) {
+			return awaitLoading(getAsync(key));
+		}
 
 		return fetch(key);
 	}
 	
-	private Value unsynchronized_fetch (final Key key)
+	private Value unsynchronized_fetch (final Segment<Key, Value> segment, final Key key)
 	{
 		plugins.onBeforeFetch(key);
-		final var value = manager.get(key);
-		if (value==null && !manager.contains(key)) {
+		final var entry = segment.manager.getEntry(key);
+		final Value value;
+		if (isLive(entry)) {
+			value = entry.getPayload();
+			slideExpiry(key, entry);
+			checkRefreshAhead(key, entry);
+		}
+		else {
+			// expired entries are misses, even when they are not removed yet 
+			value = null;
 			plugins.onMiss(key);
 		}
 		plugins.onAfterFetch(key, value);
 		return value;		
 	}
 	
+	/**
+	 * Checks an entry against its inline expiry date. Entries are removed by the expiry manager shortly after their expiry,
+	 * until then they must be treated as not existing.
+	 * 
+	 * @return <code>true</code> when the entry exists and is not expired
+	 */
+	private static boolean isLive (final PayloadIF<?, ?> entry)
+	{
+		if (entry==null) return false;
+		final long expiry = entry.getExpiry();
+		return expiry==0 || expiry>System.currentTimeMillis();
+	}
+	
+	/**
+	 * Tries to fetch a value without locking (when supported by the guard of the segment). 
+	 * 
+	 * Only hits are reported, a <code>null</code> result must be retried with a lock, as the key might not exist, might
+	 * map to a <code>null</code> value or the read was inconsistent. 
+	 */
+	private Value optimistic_fetch (final Segment<Key, Value> segment, final Key key)
+	{
+		final var entry = segment.guard.tryOptimisticRead(() -> {
+			final var e = segment.manager.getEntry(key);
+			return e==null || e.getPayload()==null || !isLive(e)?null:e;
+		});
+		if (entry==null) return null;
+		
+		final var value = entry.getPayload();
+		plugins.onBeforeFetch(key);
+		slideExpiry(key, entry);
+		checkRefreshAhead(key, entry);
+		plugins.onAfterFetch(key, value);
+		return value;
+	}
+	
+	/**
+	 * Starts a reload of an entry when its refresh time has passed. Only a single reader claims the reload, 
+	 * all readers keep getting the current value. 
+	 * 
+	 * Readers might hold a read lock, therefore the reload is started on the loader executor.
+	 */
+	private void checkRefreshAhead (final Key key, final PayloadIF<Key, Value> entry)
+	{
+		final long refreshAfter = entry.getRefreshAfter();
+		if (refreshAfter==0) return;
+		if (entry.tryClaimRefresh(System.currentTimeMillis())) {
+			loaderExecutor.execute(() -> refreshAhead(key, entry, refreshAfter));
+		}
+	}
+	
+	/**
+	 * Reloads an entry with the refresh method or, if not installed, the value factories. The entry is only replaced when it 
+	 * was not changed in the meantime. When the reload fails the current value is kept and the next read tries again.
+	 */
+	private void refreshAhead (final Key key, final PayloadIF<Key, Value> entry, final long refreshAfter)
+	{
+		final var refresh = refreshMethod;
+		final var factory = valueWithExpiryFactory;
+		final var asyncFactory = asyncValueFactory;
+		CompletableFuture<ValueWithExpiry<Value>> reloaded;
+		try {
+			if (refresh!=null) reloaded = CompletableFuture.completedFuture(refresh.apply(key));
+			else if (factory!=null) reloaded = CompletableFuture.completedFuture(factory.apply(key));
+			else if (asyncFactory!=null) reloaded = asyncFactory.apply(key);
+			else return;
+			if (reloaded==null) throw new NullPointerException("Value factory returned no future for key "+key);
+		}
+		catch (RuntimeException e) {
+			reloaded = CompletableFuture.failedFuture(e);
+		}
+		
+		reloaded.whenComplete((newValue, t) -> {
+			if (t!=null || newValue==null) {
+				entry.setRefreshAfter(refreshAfter);
+				return;
+			}
+			final var segment = segmentFor(key);
+			segment.guard.writeLocked(() -> {
+				if (segment.manager.peekEntry(key)!=entry) return;
+				plugins.onRefresh(key);
+				unsynchronized_set(segment, key, newValue.getValue(), newValue.getExpiry(), newValue.getRefreshAfter());
+			});
+		});
+	}
+	
 	@Override
 	public Value fetch (final Key key) 
 	{
-		return guard.readLocked(() -> this.unsynchronized_fetch(key));	
+		final var segment = segmentFor(key);
+		final var value = optimistic_fetch(segment, key);
+		if (value!=null) return value;
+		return segment.guard.readLocked(() -> this.unsynchronized_fetch(segment, key));	
 	}
 	
 	// removeFromExpireManager is false when the method is called from the expirymanager, true otherwise
-	protected Value unsynchronized_remove (Key key, boolean removeFromExpireManager)
+	protected Value unsynchronized_remove (final Segment<Key, Value> segment, Key key, boolean removeFromExpireManager)
 	{
 		plugins.onBeforeRemove(key);
-		final var removedElement = manager.remove(key);
+		final var removedElement = segment.manager.remove(key);
 		if (expiryManager!=null && removeFromExpireManager) expiryManager.remove(key);
 		plugins.onAfterRemove(key, removedElement);
 		return removedElement;		
@@ -256,65 +751,289 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	@Override
 	public void remove (Key key)
 	{		
-		guard.writeLocked(() -> unsynchronized_remove(key,true));		
+		final var segment = segmentFor(key);
+		segment.guard.writeLocked(() -> {
+			final var w = writer;
+			if (w!=null) w.delete(key);
+			unsynchronized_remove(segment,key,true);
+		});		
+		applyBackPressure();
 	}
 
+	private int unsynchronized_size ()
+	{
+		int size = 0;
+		for (final var segment: segments) size+=segment.manager.cachesize();
+		return size;
+	}
+	
 	@Override
 	public int size ()
 	{
-		return guard.readLocked(manager::cachesize);
+		return guard.readLocked(this::unsynchronized_size);
 	}
 	
 	@Override
 	public boolean isEmpty ()
 	{
-		return guard.readLocked(() -> manager.cachesize()==0);
+		return guard.readLocked(() -> unsynchronized_size()==0);
 	}
 
 	@Override
 	public boolean contains (Key key)
 	{
-		return guard.readLocked(() -> manager.contains (key));
+		final var segment = segmentFor(key);
+		return segment.guard.readLocked(() -> isLive(segment.manager.peekEntry(key)));
 	}
 	
-	private int maxSize = -1;
+	private volatile int maxSize = -1;
+	
+	// Serializes changes of the maximum size, so that all segments get the share of the same size
+	private final ReentrantLock maxSizeLock = new ReentrantLock();
 	
 	@Override
 	public MiniCache<Key, Value> setMaxSize (int maxSize)
 	{
-		synchronized (this) {
+		maxSizeLock.lock();
+		try {
 			this.maxSize=maxSize;
+			unsynchronized_applyLimits();
+		}
+		finally {
+			maxSizeLock.unlock();
 		}
-		shrink();
 		return this;
 	}
 	
 	@Override
-	public synchronized int getMaxSize ()
+	public int getMaxSize ()
 	{
 		return maxSize;
 	}
-
-	private void unsynchronized_shrink ()
-	{
-		if (maxSize<1) return;		
-		while (manager.cachesize()>maxSize) {
-			final var last = manager.getForDeletion();
-			if (last!=null) {
-				unsynchronized_remove(last,true);
-				plugins.onShrink(last);
+	
+	private volatile long maxWeight = -1;
+	
+	@Override
+	public MiniCache<Key, Value> setMaxWeight (long maxWeight)
+	{
+		maxSizeLock.lock();
+		try {
+			this.maxWeight=maxWeight<0?-1:maxWeight;
+			unsynchronized_applyLimits();
+		}
+		finally {
+			maxSizeLock.unlock();
+		}
+		return this;
+	}
+	
+	/**
+	 * Distributes the maximum size and weight (reduced by the capacity factor) over all segments and shrinks the segments.
+	 * The remainder of the division is given to the first segments. A limited segment gets a share of at least one, thus a 
+	 * maximum size below the number of segments is exceeded by at most the number of segments instead of evicting every 
+	 * entry of the segments without share. Must only be called while holding the <code>maxSizeLock</code>.
+	 */
+	private void unsynchronized_applyLimits ()
+	{
+		final int baseSize = maxSize>0?maxSize:pressureBaseSize;
+		final int effectiveMaxSize = capacityFactor>=1.0 || baseSize<1?maxSize:Math.max(1, (int)(baseSize*capacityFactor));
+		final long effectiveMaxWeight = capacityFactor>=1.0 || maxWeight<0?maxWeight:(long)(maxWeight*capacityFactor);
+		for (int i=0;i<segments.length;i++) {
+			final var segment = segments[i];
+			final int segmentMaxSize = effectiveMaxSize<1?-1:Math.max(1, effectiveMaxSize/segments.length + (i<effectiveMaxSize%segments.length?1:0));
+			final long segmentMaxWeight = effectiveMaxWeight<1?effectiveMaxWeight:Math.max(1, effectiveMaxWeight/segments.length + (i<effectiveMaxWeight%segments.length?1:0));
+			segment.guard.writeLocked(() -> {
+				segment.maxSize=segmentMaxSize;
+				segment.maxWeight=segmentMaxWeight;
+				segment.capacity=segmentMaxSize;
+				segment.manager.setCapacity(segmentMaxSize);
+				unsynchronized_shrink(segment);
+			});
+		}
+	}
+	
+	// Share of the maximum size and weight which is used under heap pressure, guarded by the maxSizeLock
+	private double capacityFactor = 1.0;
+	// Size of an unbounded cache when the heap pressure started, guarded by the maxSizeLock
+	private int pressureBaseSize = -1;
+	
+	// Usage of the heap at the last change of the capacity factor, guarded by the maxSizeLock
+	private double pressureUsage = 0;
+	// Time of the last shrink in nanoseconds, guarded by the maxSizeLock
+	private long pressureShrinkTime = 0;
+	
+	private static final double CAPACITY_SHRINK_FACTOR = 0.75;
+	private static final double CAPACITY_GROW_FACTOR = 1.1;
+	private static final double MIN_CAPACITY_FACTOR = 0.1;
+	private static final long CAPACITY_SHRINK_INTERVAL = 1_000_000_000l;
+	
+	/**
+	 * Adapts the capacity of the cache to the usage of the heap. When the usage exceeds {@link HeapPressureMonitor#HIGH_USAGE}
+	 * the maximum size and weight are lowered by a quarter (down to a tenth of the configured values) and the least valuable
+	 * entries are evicted by the eviction manager. When the usage dropped below {@link HeapPressureMonitor#LOW_USAGE} the 
+	 * capacity is raised again by a tenth until the configured values are reached. 
+	 * 
+	 * The usage after a collection of the old generation is reported again with every collection of the young generation, 
+	 * thus the cache shrinks at most once a second and only when the usage has risen since the capacity was changed last.
+	 * 
+	 * An unbounded cache is limited relative to its size when the heap pressure started. The configured values returned by
+	 * {@link #getMaxSize()} and {@link #getMaxWeight()} do not change.
+	 * 
+	 * @param usage share of the heap which is used after the last garbage collection (0-1)
+	 */
+	public void onHeapPressure (final double usage)
+	{
+		onHeapPressure(usage, System.nanoTime());
+	}
+	
+	/**
+	 * Version of {@link #onHeapPressure(double)} with an explicit time.
+	 * 
+	 * @param usage share of the heap which is used after the last garbage collection (0-1)
+	 * @param now current time in nanoseconds as returned by {@link System#nanoTime()}
+	 */
+	public void onHeapPressure (final double usage, final long now)
+	{
+		maxSizeLock.lock();
+		try {
+			double factor = capacityFactor;
+			if (usage>=HeapPressureMonitor.HIGH_USAGE) {
+				if (factor<1.0 && (usage<=pressureUsage || now-pressureShrinkTime<CAPACITY_SHRINK_INTERVAL)) return;
+				if (factor>=1.0) pressureBaseSize = size();
+				factor = Math.max(MIN_CAPACITY_FACTOR, factor*CAPACITY_SHRINK_FACTOR);
+				pressureShrinkTime = now;
 			}
-			else break;
-		}	
+			else if (usage<=HeapPressureMonitor.LOW_USAGE) {
+				factor = Math.min(1.0, factor*CAPACITY_GROW_FACTOR);
+			}
+			if (factor==capacityFactor) return;
+			
+			capacityFactor = factor;
+			pressureUsage = usage;
+			if (factor>=1.0) pressureBaseSize = -1;
+			unsynchronized_applyLimits();
+		}
+		finally {
+			maxSizeLock.unlock();
+		}
 	}
 	
-	protected void shrink ()
-	{	
-		guard.writeLocked(this::unsynchronized_shrink);
+	/**
+	 * Lets the capacity of the cache follow the heap usage, see {@link #onHeapPressure(double)}. 
+	 * 
+	 * @see com.github.ds67.jminicache.MiniCacheBuilder#setAdaptToHeapPressure(boolean)
+	 * 
+	 * @param adapt <code>true</code> to listen to the heap usage, <code>false</code> to stop listening and restore the capacity
+	 * @return this object to provide a builder like interface
+	 */
+	public MiniCache<Key, Value> setAdaptToHeapPressure (final boolean adapt)
+	{
+		if (adapt) {
+			HeapPressureMonitor.register(this);
+		}
+		else {
+			HeapPressureMonitor.unregister(this);
+			maxSizeLock.lock();
+			try {
+				capacityFactor = 1.0;
+				pressureBaseSize = -1;
+				pressureUsage = 0;
+				unsynchronized_applyLimits();
+			}
+			finally {
+				maxSizeLock.unlock();
+			}
+		}
+		return this;
+	}
+	
+	@Override
+	public long getMaxWeight ()
+	{
+		return maxWeight;
+	}
+	
+	/**
+	 * Installs the weigher which calculates the weight of the entries for {@link #setMaxWeight(long)}. The weight is stored
+	 * with an entry when it is set, thus the weigher should be installed before the cache is used. 
+	 * 
+	 * @see com.github.ds67.jminicache.MiniCacheBuilder#setWeigher(Weigher)
+	 * 
+	 * @param weigher weigher to install or <code>null</code> to weigh every entry with 1
+	 * @return this object to provide a builder like interface
+	 */
+	public MiniCache<Key, Value> setWeigher (final Weigher<Key, Value> weigher)
+	{
+		this.weigher=weigher;
+		return this;
+	}
+
+	private volatile double lowWatermark = 1.0;
+	
+	/**
+	 * Sets the share of the maximum size and weight to which the cache is shrunk once it exceeds the maximum. With the default 
+	 * of 1 every write to a full cache evicts a single entry. With a lower value the entries are evicted in batches, the keys
+	 * are removed from the expiry manager with one lock and the plugins are informed with one 
+	 * {@link com.github.ds67.jminicache.plugin.Plugin#onRemoveAll(Map)} and one
+	 * {@link com.github.ds67.jminicache.plugin.Plugin#onShrinkAll(Collection)} call. The following writes do not evict 
+	 * until the maximum is exceeded again, at the price of a cache which is not completely used. 
+	 * 
+	 * @see com.github.ds67.jminicache.MiniCacheBuilder#setLowWatermark(double)
+	 * 
+	 * @param lowWatermark share of the maximum size and weight, values not greater than 0 or above 1 stand for 1
+	 * @return this object to provide a builder like interface
+	 */
+	public MiniCache<Key, Value> setLowWatermark (final double lowWatermark)
+	{
+		this.lowWatermark=lowWatermark>0 && lowWatermark<1?lowWatermark:1.0;
+		return this;
+	}
+	
+	public double getLowWatermark ()
+	{
+		return lowWatermark;
+	}
+
+	private static boolean exceeds (final Segment<?, ?> segment, final int maxSize, final long maxWeight)
+	{
+		return (maxSize>=0 && segment.manager.cachesize()>maxSize) || (maxWeight>=0 && segment.manager.weight()>maxWeight);
+	}
+	
+	/**
+	 * Evicts entries when the segment exceeds its maximum size or weight (the high watermark) until it is reduced to the 
+	 * low watermark.
+	 */
+	private void unsynchronized_shrink (final Segment<Key, Value> segment)
+	{
+		if (!exceeds(segment, segment.maxSize, segment.maxWeight)) return;
+		
+		// without a maximum size the largest number of entries which exceeded the maximum weight is the best estimate of the 
+		// capacity. It only grows, thus the eviction manager keeps its regions once the number of entries settled
+		if (segment.maxSize<1 && segment.manager.cachesize()>segment.capacity) {
+			segment.capacity=segment.manager.cachesize();
+			segment.manager.setCapacity(segment.capacity);
+		}
+		
+		final double low = lowWatermark;
+		// a segment which may hold entries keeps at least the entry which was just written
+		final int targetSize = segment.maxSize<1?segment.maxSize:Math.max(1, (int)(segment.maxSize*low));
+		final long targetWeight = segment.maxWeight<0?-1:(long)(segment.maxWeight*low);
+		final var evicted = new LinkedHashMap<Key, Value>();
+		while (exceeds(segment, targetSize, targetWeight)) {
+			final var last = segment.manager.getForDeletion();
+			if (last==null) break;
+			// the eviction manager expects the removal before it is asked for the next key
+			evicted.put(last, segment.manager.remove(last));
+		}
+		if (evicted.isEmpty()) return;
+		
+		if (expiryManager!=null) expiryManager.removeAll(evicted.keySet());
+		plugins.onRemoveAll(evicted);
+		plugins.onShrinkAll(evicted.keySet());
 	}
 	
 	@Override
-	public synchronized MiniCache<Key, Value> setValueWithExpiryFactory (final Function<Key,ValueWithExpiry<Value>> valueFactory)
+	public MiniCache<Key, Value> setValueWithExpiryFactory (final Function<Key,ValueWithExpiry<Value>> valueFactory)
 	{
 		guard.writeLocked(() -> {
 			this.valueWithExpiryFactory=valueFactory;
@@ -323,7 +1042,7 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	}
 	
 	@Override
-	public synchronized MiniCache<Key, Value> setValueFactory (final Function<Key,Value> valueFactory)
+	public MiniCache<Key, Value> setValueFactory (final Function<Key,Value> valueFactory)
 	{
 		guard.writeLocked(() -> {
 			this.valueWithExpiryFactory= ValueWithExpiry.wrap(valueFactory);
@@ -331,38 +1050,165 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 		return this;
 	}
 	
-	private void expired (Key key)
+	@Override
+	public MiniCache<Key, Value> setAsyncValueFactory (final Function<Key,CompletableFuture<ValueWithExpiry<Value>>> valueFactory)
 	{
 		guard.writeLocked(() -> {
-			plugins.onExpire(key);
-			unsynchronized_remove(key,false);	
-		});		
+			this.asyncValueFactory=valueFactory;
+		});
+		return this;
+	}
+	
+	@Override
+	public MiniCache<Key, Value> setLoaderExecutor (final Executor executor)
+	{
+		guard.writeLocked(() -> {
+			this.loaderExecutor=executor==null?ForkJoinPool.commonPool():executor;
+		});
+		return this;
+	}
+	
+	/**
+	 * Installs a writer which gets all changes done by the set and remove methods. The writer is called while the
+	 * segment of the key is locked, thus changes of a key are passed in the same order as they are applied to the cache.
+	 * 
+	 * @see com.github.ds67.jminicache.MiniCacheBuilder#setCacheWriter(CacheWriter, com.github.ds67.jminicache.MiniCacheBuilder.WriteMode)
+	 * 
+	 * @param writer writer to install or <code>null</code> to remove the installed writer
+	 * @return this object to provide a builder like interface
+	 */
+	public MiniCache<Key, Value> setCacheWriter (final CacheWriter<Key, Value> writer)
+	{
+		this.writer=writer;
+		return this;
+	}
+	
+	/**
+	 * Installs a policy which calculates the expiry dates of entries which are set without an explicit expiry date
+	 * and which may move the expiry date on every read. Has no effect when the cache was created without expiry.
+	 * 
+	 * @see com.github.ds67.jminicache.MiniCacheBuilder#setExpiry(Expiry)
+	 * 
+	 * @param expiry policy to install or <code>null</code> to remove the installed policy
+	 * @return this object to provide a builder like interface
+	 */
+	public MiniCache<Key, Value> setExpiry (final Expiry<Key, Value> expiry)
+	{
+		this.expiryPolicy=expiry;
+		return this;
+	}
+	
+	/**
+	 * Checks whether a key collected by the expiry manager is still alive. The key might have been set again (with a new 
+	 * or without expiry date) or a read moved its expiry date, in this case the key is scheduled again.
+	 * 
+	 * @return <code>true</code> when the key must not be expired
+	 */
+	private boolean unsynchronized_rescheduleIfLive (final Key key, final PayloadIF<Key, Value> entry)
+	{
+		if (!isLive(entry)) return false;
+		if (entry.getExpiry()>0) expiryManager.add(key, entry.getExpiry());
+		return true;
+	}
+	
+	// Number of expired keys which are removed before the lock is yielded to waiting threads
+	private static final int EXPIRY_CHUNK_SIZE = 500;
+	
+	/**
+	 * Removes the keys collected by the expiry manager. Every segment is locked once, the keys are removed in chunks 
+	 * of {@link #EXPIRY_CHUNK_SIZE} and the lock is yielded between the chunks when other threads are waiting.
+	 * The plugins are notified once per chunk. Keys which were removed in the meantime are skipped.
+	 */
+	private void expired (final Collection<Key> keys)
+	{
+		partitionBySegment(keys, Function.identity()).forEach((segment, segmentKeys) -> {
+			segment.guard.writeLocked(() -> {
+				final var chunk = new ArrayList<Key>(Math.min(segmentKeys.size(), EXPIRY_CHUNK_SIZE));
+				for (final var key: segmentKeys) {
+					final var entry = segment.manager.peekEntry(key);
+					if (entry==null || unsynchronized_rescheduleIfLive(key, entry)) continue;
+					chunk.add(key);
+					if (chunk.size()>=EXPIRY_CHUNK_SIZE) {
+						unsynchronized_expire(segment, chunk);
+						chunk.clear();
+						// yield when readers are waiting
+						segment.guard.yield();
+					}
+				}
+				if (!chunk.isEmpty()) unsynchronized_expire(segment, chunk);
+			});
+		});
+	}
+	
+	private void unsynchronized_expire (final Segment<Key, Value> segment, final Collection<Key> keys)
+	{
+		plugins.onExpireAll(keys);
+		// the keys are no longer known by the expiry manager
+		final var removed = new LinkedHashMap<Key, Value>();
+		for (final var key: keys) removed.put(key, segment.manager.remove(key));
+		plugins.onRemoveAll(removed);
 	}
 
 	@Override
-	public synchronized MiniCache<Key, Value> setRefreshMethod (final Function<Key,ValueWithExpiry<Value>> refreshMethod)
+	public MiniCache<Key, Value> setRefreshMethod (final Function<Key,ValueWithExpiry<Value>> refreshMethod)
 	{
+		this.refreshMethod=refreshMethod;
+		if (expiryManager==null) return this;
+		
 		if (refreshMethod==null) expiryManager.setDeletionTrigger(this::expired);
-		else expiryManager.setDeletionTrigger((key) -> {
-			final var newValue = refreshMethod.apply(key);
-			plugins.onExpire(key);
-			plugins.onRefresh(key);
-			this.set(key, newValue.getValue(), newValue.getExpiry());
-		});
+		// The refresh method might block, thus run it on the loader executor instead of the scheduler thread
+		else expiryManager.setDeletionTrigger((keys) -> keys.forEach((key) -> loaderExecutor.execute(() -> refreshExpired(key, refreshMethod))));
 		return this;
 	}
 	
+	/**
+	 * Replaces an expired entry by the value of the refresh method. The key is no longer scheduled by the expiry manager, 
+	 * thus when the refresh method fails the entry is expired, otherwise it stayed in the cache forever.
+	 */
+	private void refreshExpired (final Key key, final Function<Key,ValueWithExpiry<Value>> refreshMethod)
+	{
+		final var segment = segmentFor(key);
+		if (segment.guard.readLocked(() -> unsynchronized_rescheduleIfLive(key, segment.manager.peekEntry(key)))) return;
+		final ValueWithExpiry<Value> newValue;
+		try {
+			newValue = refreshMethod.apply(key);
+			if (newValue==null) throw new NullPointerException("Refresh method returned no value for key "+key);
+		}
+		catch (RuntimeException e) {
+			logger.log(System.Logger.Level.WARNING, "Refreshing the expired key "+key+" failed, the key is removed", e);
+			expired(List.of(key));
+			return;
+		}
+		plugins.onExpire(key);
+		plugins.onRefresh(key);
+		// refreshed values are not passed to the cache writer
+		segment.guard.writeLocked(() -> unsynchronized_set(segment, key, newValue.getValue(), newValue.getExpiry(), newValue.getRefreshAfter()));
+	}
+	
 	@Override
-	public synchronized Function<Key,ValueWithExpiry<Value>> getValueWithExpiryFactory ()
+	public Function<Key,ValueWithExpiry<Value>> getValueWithExpiryFactory ()
 	{
 		return this.valueWithExpiryFactory;
 	}
 	
+	@Override
+	public void flush ()
+	{
+		if (writer instanceof WriteBehindWriter) ((WriteBehindWriter<Key, Value>)writer).flush();
+	}
+	
+	@Override
+	public void close ()
+	{
+		HeapPressureMonitor.unregister(this);
+		if (writer instanceof WriteBehindWriter) ((WriteBehindWriter<Key, Value>)writer).close();
+	}
+	
 	@Override
 	public void clear ()
 	{
 		guard.writeLocked(() -> {
-			manager.clear();
+			for (final var segment: segments) segment.manager.clear();
 			plugins.onClear();
 		});
 	}
@@ -370,7 +1216,16 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	@Override
 	public Set<Key> keySet ()
 	{
-		return guard.readLocked(manager::keySet);
+		return guard.readLocked(() -> {
+			final var keys = new HashSet<Key>(unsynchronized_size());
+			for (final var segment: segments) {
+				// expired entries which are not removed yet are left out as done by get
+				for (final var entry: segment.manager.entries()) {
+					if (isLive(entry)) keys.add(entry.getKey());
+				}
+			}
+			return keys;
+		});
 	}
 	
 	@Override
@@ -388,9 +1243,11 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	protected <Wrapper> Collection<Wrapper> values (Function<Map.Entry<Key, Value>, Wrapper> wrapper)
 	{
 		return guard.readLocked(() -> {
-			final var values = new ArrayList<Wrapper>(this.size()); 
-			for (var entry: manager.entrySet()) {
-				values.add(wrapper.apply(entry));
+			final var values = new ArrayList<Wrapper>(unsynchronized_size()); 
+			for (final var segment: segments) {
+				for (var entry: segment.manager.entries()) {
+					if (isLive(entry)) values.add(wrapper.apply(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getPayload())));
+				}
 			}
 			return values;
 		});
@@ -405,18 +1262,30 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	@Override
 	public Collection<ValueWithExpiry<Value>> valuesWithExpiryDate ()
 	{
-		// Define a lambda function to retrieve the expire time. If no expire manager exists its always 0, otherwise ask the expiryManager
-		final Function<Key, Long> getExpireTime = (expiryManager==null)?(key) -> 0L:(key) -> expiryManager.getExpiryTime(key);
-
-		return values((entry) -> new ValueWithExpiry<Value>(entry.getValue(), getExpireTime.apply(entry.getKey())));
+		return guard.readLocked(() -> {
+			final var values = new ArrayList<ValueWithExpiry<Value>>(unsynchronized_size()); 
+			for (final var segment: segments) {
+				for (var entry: segment.manager.entries()) {
+					if (isLive(entry)) values.add(withExpiryDate(entry));
+				}
+			}
+			return values;
+		});
+	}
+	
+	private static <Value> ValueWithExpiry<Value> withExpiryDate (final PayloadIF<?, Value> entry)
+	{
+		return new ValueWithExpiry<Value>(entry.getPayload(), entry.getExpiry(), entry.getRefreshAfter());
 	}
 	
 	protected <Wrapper> Set<Map.Entry<Key, Wrapper>> entrySet (Function<Map.Entry<Key, Value>, Wrapper> wrapper)
 	{
 		return guard.readLocked(() -> {
-			final var values = new HashSet<Map.Entry<Key, Wrapper>>(this.size()); 
-			for (var entry: manager.entrySet()) {
-				values.add(new AbstractMap.SimpleEntry<>(entry.getKey(),wrapper.apply(entry)));
+			final var values = new HashSet<Map.Entry<Key, Wrapper>>(unsynchronized_size()); 
+			for (final var segment: segments) {
+				for (var entry: segment.manager.entries()) {
+					if (isLive(entry)) values.add(new AbstractMap.SimpleEntry<>(entry.getKey(),wrapper.apply(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getPayload()))));
+				}
 			}
 			return values;
 		});
@@ -431,11 +1300,14 @@ public class MiniCacheImpl<Key, Value> implements MiniCache<Key, Value>
 	@Override
 	public Set<Map.Entry<Key, ValueWithExpiry<Value>>> entrySetWithExpiryDate ()
 	{
-		// Define a lambda function to retrieve the expire time. If no expire manager exists its always 0, otherwise ask the expiryManager
-		final Function<Key, Long> getExpireTime = (expiryManager==null)?(key) -> 0L:(key) -> expiryManager.getExpiryTime(key);
-
-		return entrySet((entry) -> { 
-			return new ValueWithExpiry<Value>(entry.getValue(), getExpireTime.apply(entry.getKey())); 
+		return guard.readLocked(() -> {
+			final var values = new HashSet<Map.Entry<Key, ValueWithExpiry<Value>>>(unsynchronized_size()); 
+			for (final var segment: segments) {
+				for (var entry: segment.manager.entries()) {
+					if (isLive(entry)) values.add(new AbstractMap.SimpleEntry<>(entry.getKey(), withExpiryDate(entry)));
+				}
+			}
+			return values;
 		});
 	}
 
@@ -0,0 +1,45 @@
+package com.github.ds67.jminicache.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.ds67.jminicache.impl.guard.GuardIF;
+import com.github.ds67.jminicache.impl.storage.StorageManagerIF;
+
+/**
+ * A segment is an independent part of the cache. Every key belongs to exactly one segment (decided by the hash code of the key)
+ * and every segment has its own storage, eviction manager and guard. Thus accesses to keys of different segments never
+ * contend on the same lock.
+ *
+ * Every segment enforces its share of the overall maximum cache size and weight.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cached values
+ */
+class Segment<Key, Value>
+{
+	final StorageManagerIF<Key, Value, ?> manager;
+	final GuardIF guard;
+
+	// Keys for which a supplier is currently called together with the future which is completed upon load. 
+	// Must only be accessed while holding the write lock of the segment
+	final Map<Key,CompletableFuture<Value>> loading = new HashMap<>();
+
+	// Share of the maximum cache size of this segment, -1 when unbounded. Must only be changed while holding the write lock
+	int maxSize = -1;
+	
+	// Share of the maximum total weight of this segment, -1 when unbounded. Must only be changed while holding the write lock
+	long maxWeight = -1;
+	
+	// Capacity passed to the eviction manager, -1 when unknown. Must only be changed while holding the write lock
+	int capacity = -1;
+
+	Segment (final StorageManagerIF<Key, Value, ?> manager)
+	{
+		this.manager=manager;
+		this.guard=manager.getGuard();
+	}
+}
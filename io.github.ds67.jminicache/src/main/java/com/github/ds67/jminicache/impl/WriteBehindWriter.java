@@ -0,0 +1,271 @@
+package com.github.ds67.jminicache.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.ds67.jminicache.CacheWriter;
+
+/**
+ * Writer which queues all changes and passes them in batches to the wrapped writer.
+ *
+ * Repeated changes of the same key are coalesced, only the last change is written. The queue is flushed when
+ * <code>batchSize</code> changes are queued or <code>delay</code> milliseconds after the first queued change.
+ * Flushes run on the executor and never in parallel, at most one flush waits to run. When the wrapped writer fails the
+ * changes are queued again (unless the key was changed in the meantime) and retried with the next flush. After
+ * {@link #MAX_ATTEMPTS} failed attempts a change is dropped and reported to
+ * {@link CacheWriter#onWriteFailure(java.util.Collection, RuntimeException)}.
+ * 
+ * The queue holds at most {@link #QUEUE_BATCHES} batches. When it is full the thread which changed the cache flushes 
+ * the queue itself in {@link #applyBackPressure()} after it released the locks of the cache, so a slow writer slows down
+ * the changes instead of filling the heap.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cached values
+ */
+public class WriteBehindWriter<Key, Value> implements CacheWriter<Key, Value>
+{
+	private static final System.Logger logger = System.getLogger(WriteBehindWriter.class.getName());
+	
+	// Marker for deleted keys in the queue, as null is a valid value
+	private static final Object DELETED = new Object();
+	
+	static final int MAX_ATTEMPTS = 3;
+	static final int QUEUE_BATCHES = 10;
+
+	// A queued change with the number of failed attempts to write it
+	private static final class Change
+	{
+		final Object value;
+		int failures = 0;
+		
+		Change (final Object value)
+		{
+			this.value=value;
+		}
+	}
+	
+	private final CacheWriter<Key, Value> writer;
+	private final int batchSize;
+	private final long delay;
+	private final ScheduledExecutorService scheduler;
+	private final Executor executor;
+
+	// Queued changes in order of their first change. Must only be accessed while holding the lock
+	private LinkedHashMap<Key, Change> pending = new LinkedHashMap<>();
+	// A flush is scheduled or waits on the executor and did not take the queue yet
+	private boolean flushScheduled = false;
+	// Delayed flush, null when the scheduled flush was passed to the executor immediately
+	private ScheduledFuture<?> delayedFlush = null;
+	private boolean closed = false;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	/**
+	 * @param writer writer which gets the batches of changes
+	 * @param batchSize number of queued changes which triggers a flush
+	 * @param delay maximum time in milliseconds a change is queued (unless a flush fails)
+	 * @param scheduler scheduler which triggers the time based flushes
+	 * @param executor executor which runs the flushes
+	 */
+	public WriteBehindWriter (final CacheWriter<Key, Value> writer, final int batchSize, final long delay, final ScheduledExecutorService scheduler, final Executor executor)
+	{
+		this.writer=writer;
+		this.batchSize=Math.max(1, batchSize);
+		this.delay=delay;
+		this.scheduler=scheduler;
+		this.executor=executor;
+	}
+
+	@Override
+	public void write (final Key key, final Value value)
+	{
+		if (!enqueue(key, value)) writer.write(key, value);
+	}
+
+	@Override
+	public void delete (final Key key)
+	{
+		if (!enqueue(key, DELETED)) writer.delete(key);
+	}
+
+	/**
+	 * @return <code>false</code> when the writer is closed and the change must be written directly
+	 */
+	private boolean enqueue (final Key key, final Object change)
+	{
+		boolean flushNow = false;
+		lock.lock();
+		try {
+			if (closed) return false;
+			pending.put(key, new Change(change));
+			if (pending.size()>=batchSize) {
+				// a full batch replaces a delayed flush, but is not submitted again while a flush is waiting
+				if (!flushScheduled || delayedFlush!=null) {
+					unsynchronized_cancelDelayedFlush();
+					flushScheduled = true;
+					flushNow = true;
+				}
+			}
+			else if (!flushScheduled) {
+				unsynchronized_scheduleDelayedFlush();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		if (flushNow) executor.execute(this::flush);
+		return true;
+	}
+	
+	private void unsynchronized_scheduleDelayedFlush ()
+	{
+		flushScheduled = true;
+		delayedFlush = scheduler.schedule(() -> executor.execute(this::flush), delay, TimeUnit.MILLISECONDS);
+	}
+	
+	private void unsynchronized_cancelDelayedFlush ()
+	{
+		if (delayedFlush!=null) delayedFlush.cancel(false);
+		delayedFlush = null;
+	}
+	
+	/**
+	 * Flushes the queue on the calling thread when it is full, so a slow writer slows down the changes instead of 
+	 * filling the heap. Must be called by the thread which changed the cache after it released the locks of the 
+	 * cache, otherwise all readers of the changed keys would wait for the wrapped writer.
+	 */
+	public void applyBackPressure ()
+	{
+		lock.lock();
+		try {
+			if (closed || pending.size()<batchSize*QUEUE_BATCHES) return;
+		}
+		finally {
+			lock.unlock();
+		}
+		flush();
+	}
+
+	/**
+	 * Passes all queued changes to the wrapped writer. Waits for a concurrently running flush.
+	 */
+	@SuppressWarnings("unchecked")
+	public void flush ()
+	{
+		flushLock.lock();
+		try {
+			final LinkedHashMap<Key, Change> changes;
+			lock.lock();
+			try {
+				changes = pending;
+				pending = new LinkedHashMap<>();
+				flushScheduled = false;
+				unsynchronized_cancelDelayedFlush();
+			}
+			finally {
+				lock.unlock();
+			}
+			if (changes.isEmpty()) return;
+
+			final var writes = new LinkedHashMap<Key, Value>();
+			final var deletes = new ArrayList<Key>();
+			changes.forEach((key, change) -> {
+				if (change.value==DELETED) deletes.add(key);
+				else writes.put(key, (Value)change.value);
+			});
+
+			final var failed = new LinkedHashMap<Key, Change>();
+			RuntimeException failure = null;
+			try {
+				if (!writes.isEmpty()) writer.writeAll(writes);
+			}
+			catch (RuntimeException e) {
+				failure = e;
+				writes.keySet().forEach((key) -> failed.put(key, changes.get(key)));
+			}
+			try {
+				if (!deletes.isEmpty()) writer.deleteAll(deletes);
+			}
+			catch (RuntimeException e) {
+				failure = e;
+				deletes.forEach((key) -> failed.put(key, changes.get(key)));
+			}
+			if (failure!=null) requeue(failed, failure);
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes all queued changes and passes later changes directly to the wrapped writer. Failing changes are retried 
+	 * immediately until they are dropped after {@link #MAX_ATTEMPTS} attempts.
+	 */
+	public void close ()
+	{
+		// holding the flush lock guarantees that no running flush queues failed changes after the check
+		flushLock.lock();
+		try {
+			lock.lock();
+			try {
+				closed = true;
+			}
+			finally {
+				lock.unlock();
+			}
+			while (hasPending()) flush();
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+	
+	private boolean hasPending ()
+	{
+		lock.lock();
+		try {
+			return !pending.isEmpty();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Queues failed changes again. Newer changes of a key take precedence, changes which failed too often are dropped.
+	 */
+	private void requeue (final Map<Key, Change> changes, final RuntimeException failure)
+	{
+		final var dropped = new ArrayList<Key>();
+		lock.lock();
+		try {
+			changes.forEach((key, change) -> {
+				if (++change.failures>=MAX_ATTEMPTS) dropped.add(key);
+				else pending.putIfAbsent(key, change);
+			});
+			if (!pending.isEmpty() && !flushScheduled && !closed) {
+				unsynchronized_scheduleDelayedFlush();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		
+		if (dropped.isEmpty()) {
+			logger.log(System.Logger.Level.WARNING, "Writing "+changes.size()+" changes failed, the changes are retried", failure);
+		}
+		else {
+			logger.log(System.Logger.Level.ERROR, "Writing "+dropped.size()+" changes failed "+MAX_ATTEMPTS+" times, the changes are dropped", failure);
+			writer.onWriteFailure(dropped, failure);
+		}
+	}
+}
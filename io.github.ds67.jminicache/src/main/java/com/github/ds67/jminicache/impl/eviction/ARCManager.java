@@ -0,0 +1,197 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * Adaptive replacement cache (ARC) eviction. The cached entries are kept in two LRU lists: entries which were accessed
+ * once since they were inserted (recency list) and entries which were accessed again (frequency list). For both lists
+ * the keys of the recently evicted entries are remembered in ghost lists.
+ *
+ * A miss whose key is found in a ghost list shows that the corresponding list was too short. The target size of the
+ * recency list is then moved in favour of that list. Evictions take the least recently used entry of the recency list when
+ * it exceeds its target size, otherwise of the frequency list. Thus the split between recency and frequency adapts to the
+ * workload without any tuning, and a scan only fills the recency list without flushing the frequency list.
+ *
+ * The capacity is passed with {@link #onCapacityChange(int)}. Reads are recorded in a {@link ReadBuffer} as done by the {@link LRUManager}.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
+public class ARCManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	private final LinkedRegion<Key, Value, Wrapper> recency = new LinkedRegion<>(1);
+	private final LinkedRegion<Key, Value, Wrapper> frequency = new LinkedRegion<>(2);
+	// Keys of evicted entries in eviction order
+	private final LinkedHashSet<Key> recencyGhosts = new LinkedHashSet<>();
+	private final LinkedHashSet<Key> frequencyGhosts = new LinkedHashSet<>();
+
+	// Target size of the recency list
+	private int target = 0;
+	// Maximum number of entries, -1 when unknown
+	private int capacity = -1;
+	// Entry returned by getForDeletion, its key goes to a ghost list when it is deleted
+	private Wrapper evicting = null;
+	private boolean lastMissInFrequencyGhosts = false;
+
+	private final ReadBuffer<Wrapper> readBuffer = new ReadBuffer<>();
+
+	private final BiFunction<Key, Value, Wrapper> wrapper;
+	private final Function<Wrapper, Value> unWrapper;
+
+	public ARCManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) {
+		this.wrapper=constructor;
+		this.unWrapper=unWrapper;
+	}
+
+	private void onAccess (final Wrapper w)
+	{
+		if (recency.contains(w)) {
+			recency.delete(w);
+			frequency.append(w);
+		}
+		else if (frequency.contains(w)) {
+			frequency.moveToEnd(w);
+		}
+	}
+
+	private int capacity ()
+	{
+		return capacity>0?capacity:recency.size()+frequency.size();
+	}
+
+	private LinkedRegion<Key, Value, Wrapper> regionOf (final Wrapper w)
+	{
+		if (recency.contains(w)) return recency;
+		if (frequency.contains(w)) return frequency;
+		return null;
+	}
+
+	@Override
+	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (w!=null && readBuffer.record(w)) {
+			readBuffer.tryDrain(this::onAccess);
+		}
+	}
+
+	@Override
+	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
+	{
+		readBuffer.drain(this::onAccess);
+		final var region = oldWrapper==null?null:regionOf(oldWrapper);
+		if (region!=null) {
+			// an update is a hit
+			region.delete(oldWrapper);
+			frequency.append(newWrapper);
+			return;
+		}
+
+		final var key = newWrapper.getKey();
+		final int c = capacity();
+		lastMissInFrequencyGhosts = false;
+		if (recencyGhosts.remove(key)) {
+			// the recency list was too short
+			target = Math.min(c, target+Math.max(1, frequencyGhosts.size()/Math.max(1, recencyGhosts.size())));
+			frequency.append(newWrapper);
+		}
+		else if (frequencyGhosts.remove(key)) {
+			// the frequency list was too short
+			target = Math.max(0, target-Math.max(1, recencyGhosts.size()/Math.max(1, frequencyGhosts.size())));
+			lastMissInFrequencyGhosts = true;
+			frequency.append(newWrapper);
+		}
+		else {
+			recency.append(newWrapper);
+		}
+	}
+
+	@Override
+	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		readBuffer.drain(this::onAccess);
+		final var region = regionOf(w);
+		if (region==null) return;
+		region.delete(w);
+
+		// only evicted keys are remembered, not the removed or expired ones
+		if (w==evicting) {
+			evicting = null;
+			if (region==recency) recencyGhosts.add(w.getKey());
+			else frequencyGhosts.add(w.getKey());
+			trimGhosts();
+		}
+	}
+
+	/**
+	 * Keeps the recency list and its ghosts within the capacity and all lists within twice the capacity
+	 */
+	private void trimGhosts ()
+	{
+		final int c = capacity();
+		while (!recencyGhosts.isEmpty() && recency.size()+recencyGhosts.size()>c) removeOldest(recencyGhosts);
+		while (!frequencyGhosts.isEmpty() && recency.size()+frequency.size()+recencyGhosts.size()+frequencyGhosts.size()>2*c) removeOldest(frequencyGhosts);
+	}
+
+	private static <Key> void removeOldest (final LinkedHashSet<Key> ghosts)
+	{
+		final Iterator<Key> iterator = ghosts.iterator();
+		iterator.next();
+		iterator.remove();
+	}
+
+	@Override
+	public Key getForDeletion ()
+	{
+		readBuffer.drain(this::onAccess);
+
+		target = Math.min(target, capacity());
+
+		final boolean fromRecency = recency.size()>0
+				&& (recency.size()>target || (lastMissInFrequencyGhosts && recency.size()==target) || frequency.size()==0);
+		evicting = fromRecency?recency.first():frequency.first();
+		return evicting==null?null:evicting.getKey();
+	}
+
+	@Override
+	public void onCapacityChange (final int capacity)
+	{
+		this.capacity = capacity;
+		target = Math.min(target, capacity());
+		trimGhosts();
+	}
+
+	@Override
+	public void onClear ()
+	{
+		readBuffer.clear();
+		recency.clear();
+		frequency.clear();
+		recencyGhosts.clear();
+		frequencyGhosts.clear();
+		target = 0;
+		evicting = null;
+	}
+
+	@Override
+	public Wrapper createWrapper (final Key k, final Value v) {
+		return wrapper.apply(k, v);
+	}
+
+	@Override
+	public Value unwrap (final Wrapper w)
+	{
+		if (w==null) return null;
+		return unWrapper.apply(w);
+	}
+}
@@ -33,6 +33,18 @@ public interface EvictionManagerIF<Key, Value, Wrapper> {
 	
 	public Key getForDeletion ();
 	
+	/**
+	 * Informs the manager about the number of entries the cache may hold. Called whenever the maximum size changes and, 
+	 * for caches limited only by weight, with an estimate before entries are evicted. Managers which divide the entries 
+	 * into regions size them from this capacity, as the number of entries may exceed it by far while entries are evicted 
+	 * in batches.
+	 * 
+	 * @param capacity maximum number of entries, -1 when unknown
+	 */
+	public default void onCapacityChange (final int capacity)
+	{
+	}
+	
 	public Wrapper createWrapper (final Key k, final Value v);
 	public Value unwrap (Wrapper w);
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+/**
+ * Count-min sketch which estimates the access frequency of elements in little memory.
+ *
+ * Every element is counted in four 4 bit counters (so frequencies are capped at 15), the estimate is the minimum of these
+ * counters. Sixteen counters are packed into a long. To keep the frequencies recent all counters are halved after a sample
+ * of ten times the capacity accesses was counted (aging).
+ *
+ * Not thread safe, the sketch must be guarded by the eviction manager which uses it.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <E> Type of the counted elements
+ */
+final class FrequencySketch<E> {
+
+	private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long ONE_MASK = 0x1111111111111111L;
+
+	private long[] table = new long[0];
+	private int tableMask = 0;
+	private int sampleSize = 0;
+	private int additions = 0;
+
+	/**
+	 * Grows the sketch so that it can count the given number of elements with a low error rate. The sketch is never shrunk,
+	 * when it grows all counters are dropped.
+	 *
+	 * @param capacity expected number of distinct elements
+	 */
+	void ensureCapacity (final int capacity)
+	{
+		final int size = Math.max(16, Integer.highestOneBit(Math.max(1, Math.min(capacity, 1<<30)-1))<<1);
+		if (table.length>=size) return;
+
+		table = new long[size];
+		tableMask = size-1;
+		sampleSize = 10*size;
+		additions = 0;
+	}
+
+	/**
+	 * @param e element to look up
+	 * @return estimated access frequency of the element (0-15)
+	 */
+	int frequency (final E e)
+	{
+		if (table.length==0) return 0;
+		final int hash = spread(e);
+		final int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i=0;i<4;i++) {
+			final int offset = (start+i) << 2;
+			frequency = Math.min(frequency, (int)((table[indexOf(hash, i)] >>> offset) & 0xfL));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Counts an access of an element. Halves all counters when the sample size is reached.
+	 *
+	 * @param e accessed element
+	 */
+	void increment (final E e)
+	{
+		if (table.length==0) return;
+		final int hash = spread(e);
+		final int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i=0;i<4;i++) {
+			added |= incrementAt(indexOf(hash, i), start+i);
+		}
+		if (added && ++additions>=sampleSize) reset();
+	}
+
+	private boolean incrementAt (final int index, final int counter)
+	{
+		final int offset = counter << 2;
+		final long mask = 0xfL << offset;
+		if ((table[index] & mask)!=mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	private void reset ()
+	{
+		int odd = 0;
+		for (int i=0;i<table.length;i++) {
+			odd += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		// the truncation of odd counters lost a quarter of an addition each
+		additions = (additions - (odd >>> 2)) >>> 1;
+	}
+
+	private int indexOf (final int hash, final int i)
+	{
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return ((int)h) & tableMask;
+	}
+
+	private static int spread (final Object e)
+	{
+		int h = e==null?0:e.hashCode();
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		return (h >>> 16) ^ h;
+	}
+}
@@ -0,0 +1,223 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.GreedyDualWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * GreedyDual-Size-Frequency eviction. Every entry gets the priority
+ *
+ * <pre>
+ *    priority = inflation + frequency * cost / weight
+ * </pre>
+ *
+ * where the cost is the time the value took to load and the weight is the weight of the entry (1 without a weigher). The
+ * entry with the lowest priority is deleted and the inflation is raised to its priority. Thus entries which are expensive
+ * to reload or frequently read stay longer in the cache, while entries which were not accessed for a long time fall behind
+ * the inflation and are deleted eventually, regardless of their cost. The aim is a low total reload time instead of a
+ * high hit rate.
+ *
+ * Values which were set directly instead of being loaded by the cache have no known cost, they are treated as the
+ * cheapest entries. An update keeps the cost of the previous value when the new value was not loaded.
+ *
+ * The entries are kept in a binary heap ordered by priority, so reads, writes and evictions take O(log n) time. Reads are
+ * recorded in a {@link ReadBuffer} as done by the {@link LRUManager}.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
+public class GreedyDualManager<Key, Value, Wrapper extends GreedyDualWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// Min heap of the entries by priority
+	private Object[] heap = new Object[INITIAL_CAPACITY];
+	private int size = 0;
+	// Priority of the last deleted entry
+	private double inflation = 0;
+	// Entry returned by getForDeletion, the inflation is raised when it is deleted
+	private Wrapper evicting = null;
+	// The entry which was written last is not deleted, otherwise a cheap new entry would be removed immediately
+	private Wrapper lastWritten = null;
+
+	private final ReadBuffer<Wrapper> readBuffer = new ReadBuffer<>();
+
+	private final BiFunction<Key, Value, Wrapper> wrapper;
+	private final Function<Wrapper, Value> unWrapper;
+
+	public GreedyDualManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) {
+		this.wrapper=constructor;
+		this.unWrapper=unWrapper;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Wrapper entry (final int slot)
+	{
+		return (Wrapper)heap[slot];
+	}
+
+	private boolean contains (final Wrapper w)
+	{
+		final int slot = w.getSlot();
+		return slot>=0 && slot<size && heap[slot]==w;
+	}
+
+	private double priority (final Wrapper w)
+	{
+		// unknown costs count as the cheapest possible load, entries without weight as the lightest ones
+		return inflation + (double)w.getFrequency()*Math.max(1, w.getLoadTime())/Math.max(1, w.getWeight());
+	}
+
+	private void place (final Wrapper w, final int slot)
+	{
+		heap[slot] = w;
+		w.setSlot(slot);
+	}
+
+	private void siftUp (int slot)
+	{
+		final var w = entry(slot);
+		while (slot>0) {
+			final int parent = (slot-1)/2;
+			final var p = entry(parent);
+			if (p.getPriority()<=w.getPriority()) break;
+			place(p, slot);
+			slot = parent;
+		}
+		place(w, slot);
+	}
+
+	private void siftDown (int slot)
+	{
+		final var w = entry(slot);
+		while (true) {
+			int child = 2*slot+1;
+			if (child>=size) break;
+			if (child+1<size && entry(child+1).getPriority()<entry(child).getPriority()) ++child;
+			final var c = entry(child);
+			if (c.getPriority()>=w.getPriority()) break;
+			place(c, slot);
+			slot = child;
+		}
+		place(w, slot);
+	}
+
+	private void add (final Wrapper w)
+	{
+		if (size==heap.length) heap = Arrays.copyOf(heap, 2*size);
+		place(w, size++);
+		siftUp(w.getSlot());
+	}
+
+	private void remove (final Wrapper w)
+	{
+		final int slot = w.getSlot();
+		final var last = entry(--size);
+		heap[size] = null;
+		w.setSlot(-1);
+		if (last!=w) {
+			place(last, slot);
+			siftUp(slot);
+			siftDown(last.getSlot());
+		}
+		if (heap.length>INITIAL_CAPACITY && size<heap.length/4) heap = Arrays.copyOf(heap, heap.length/2);
+	}
+
+	private void onAccess (final Wrapper w)
+	{
+		// the entry might have been removed already
+		if (contains(w)) {
+			if (w.getFrequency()<Integer.MAX_VALUE) w.setFrequency(w.getFrequency()+1);
+			w.setPriority(priority(w));
+			siftDown(w.getSlot());
+		}
+	}
+
+	@Override
+	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (w!=null && readBuffer.record(w)) {
+			readBuffer.tryDrain(this::onAccess);
+		}
+	}
+
+	@Override
+	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
+	{
+		readBuffer.drain(this::onAccess);
+		if (oldWrapper!=null && contains(oldWrapper)) {
+			// an update is an access, the cost of the old value is kept when the new value was not loaded
+			if (newWrapper.getLoadTime()==0) newWrapper.setLoadTime(oldWrapper.getLoadTime());
+			newWrapper.setFrequency(oldWrapper.getFrequency()<Integer.MAX_VALUE?oldWrapper.getFrequency()+1:Integer.MAX_VALUE);
+			newWrapper.setPriority(priority(newWrapper));
+			final int slot = oldWrapper.getSlot();
+			oldWrapper.setSlot(-1);
+			place(newWrapper, slot);
+			siftUp(slot);
+			siftDown(newWrapper.getSlot());
+		}
+		else {
+			newWrapper.setFrequency(1);
+			newWrapper.setPriority(priority(newWrapper));
+			add(newWrapper);
+		}
+		lastWritten = newWrapper;
+	}
+
+	@Override
+	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		readBuffer.drain(this::onAccess);
+		if (contains(w)) remove(w);
+		if (lastWritten==w) lastWritten = null;
+		// only evictions raise the inflation, not the removed or expired entries
+		if (evicting==w) {
+			evicting = null;
+			inflation = Math.max(inflation, w.getPriority());
+		}
+	}
+
+	@Override
+	public Key getForDeletion ()
+	{
+		readBuffer.drain(this::onAccess);
+		if (size==0) return null;
+
+		evicting = entry(0);
+		if (evicting==lastWritten && size>1) {
+			evicting = size>2 && entry(2).getPriority()<entry(1).getPriority()?entry(2):entry(1);
+		}
+		return evicting.getKey();
+	}
+
+	@Override
+	public void onClear ()
+	{
+		readBuffer.clear();
+		heap = new Object[INITIAL_CAPACITY];
+		size = 0;
+		inflation = 0;
+		evicting = null;
+		lastWritten = null;
+	}
+
+	@Override
+	public Wrapper createWrapper (final Key k, final Value v) {
+		return wrapper.apply(k, v);
+	}
+
+	@Override
+	public Value unwrap (final Wrapper w)
+	{
+		if (w==null) return null;
+		return unWrapper.apply(w);
+	}
+}
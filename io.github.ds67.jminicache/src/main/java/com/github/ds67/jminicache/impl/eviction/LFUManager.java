@@ -0,0 +1,233 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * Least frequently used eviction. The entries are kept in buckets of equal access frequency, the buckets form a list
+ * ordered by frequency. An access moves an entry from its bucket to the bucket of the next frequency, which is either the
+ * following bucket or a new one. The entry to delete is the oldest entry of the first bucket. Thus reads, writes and the
+ * eviction take O(1) time.
+ *
+ * To let formerly frequently used entries leave the cache, the frequencies of all entries are halved after ten times as
+ * many accesses as entries are cached (aging). Aging takes O(n) time but only every O(n) accesses.
+ *
+ * The entry which was written last is never chosen for deletion, otherwise a new entry would be removed immediately as
+ * long as all other entries were accessed more than once.
+ *
+ * Reads are recorded in a {@link ReadBuffer} as done by the {@link LRUManager}.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
+public class LFUManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	private static final int AGING_FACTOR = 10;
+
+	private static final class Bucket<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>>
+	{
+		final int frequency;
+		final LinkedRegion<Key, Value, Wrapper> entries;
+		Bucket<Key, Value, Wrapper> pred = null;
+		Bucket<Key, Value, Wrapper> succ = null;
+
+		Bucket (final int frequency)
+		{
+			this.frequency=frequency;
+			// the frequency is the region id of the entries
+			this.entries=new LinkedRegion<>(frequency);
+		}
+	}
+
+	// Buckets by frequency, the region of an entry is the frequency of its bucket
+	private HashMap<Integer, Bucket<Key, Value, Wrapper>> buckets = new HashMap<>();
+	private Bucket<Key, Value, Wrapper> first = null;
+	private Bucket<Key, Value, Wrapper> last = null;
+
+	private int size = 0;
+	private int accesses = 0;
+	private Wrapper lastWritten = null;
+
+	private final ReadBuffer<Wrapper> readBuffer = new ReadBuffer<>();
+
+	private final BiFunction<Key, Value, Wrapper> wrapper;
+	private final Function<Wrapper, Value> unWrapper;
+
+	public LFUManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) {
+		this.wrapper=constructor;
+		this.unWrapper=unWrapper;
+	}
+
+	/**
+	 * Returns the bucket of a frequency, a missing bucket is created behind the bucket <code>pred</code>
+	 * (or as first bucket when <code>pred</code> is <code>null</code>).
+	 */
+	private Bucket<Key, Value, Wrapper> bucketOf (final int frequency, final Bucket<Key, Value, Wrapper> pred)
+	{
+		var bucket = buckets.get(frequency);
+		if (bucket!=null) return bucket;
+
+		bucket = new Bucket<>(frequency);
+		bucket.pred = pred;
+		bucket.succ = pred==null?first:pred.succ;
+		if (bucket.pred!=null) bucket.pred.succ = bucket;
+		else first = bucket;
+		if (bucket.succ!=null) bucket.succ.pred = bucket;
+		else last = bucket;
+		buckets.put(frequency, bucket);
+		return bucket;
+	}
+
+	/**
+	 * Removes an entry from its bucket and drops the bucket when it got empty
+	 *
+	 * @return the bucket of the entry or its predecessor when the bucket was dropped, a bucket for a higher frequency
+	 *         must be inserted behind it
+	 */
+	private Bucket<Key, Value, Wrapper> unlink (final Wrapper w)
+	{
+		final var bucket = buckets.get(w.getRegion());
+		bucket.entries.delete(w);
+		--size;
+		final var pred = bucket.pred;
+		if (bucket.entries.size()==0) {
+			if (bucket.pred!=null) bucket.pred.succ = bucket.succ;
+			else first = bucket.succ;
+			if (bucket.succ!=null) bucket.succ.pred = bucket.pred;
+			else last = bucket.pred;
+			buckets.remove(bucket.frequency);
+			return pred;
+		}
+		return bucket;
+	}
+
+	private void link (final Wrapper w, final int frequency, final Bucket<Key, Value, Wrapper> pred)
+	{
+		bucketOf(frequency, pred).entries.append(w);
+		++size;
+	}
+
+	/**
+	 * Moves an entry (or the entry which replaces it) to the bucket of the next frequency
+	 */
+	private void increment (final Wrapper w, final Wrapper replacement)
+	{
+		final int frequency = w.getRegion();
+		link(replacement, frequency==Integer.MAX_VALUE?frequency:frequency+1, unlink(w));
+	}
+
+	private void onAccess (final Wrapper w)
+	{
+		// the entry might have been removed already
+		if (w.getRegion()!=0) {
+			increment(w, w);
+			countAccess();
+		}
+	}
+	
+	/**
+	 * Counts reads and writes, starts the aging when enough accesses were counted
+	 */
+	private void countAccess ()
+	{
+		if (++accesses>=AGING_FACTOR*size) age();
+	}
+
+	/**
+	 * Halves the frequencies of all entries. The order of the entries stays the same.
+	 */
+	@SuppressWarnings("unchecked")
+	private void age ()
+	{
+		accesses = 0;
+		var bucket = first;
+		buckets = new HashMap<>();
+		first = null;
+		last = null;
+		while (bucket!=null) {
+			final int frequency = Math.max(1, bucket.frequency/2);
+			var w = bucket.entries.first();
+			while (w!=null) {
+				final var succ = (Wrapper)w.getSucc();
+				// the buckets are processed in order, thus the new bucket is always the last one
+				bucketOf(frequency, last).entries.append(w);
+				w = succ;
+			}
+			bucket = bucket.succ;
+		}
+	}
+
+	@Override
+	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (w!=null && readBuffer.record(w)) {
+			readBuffer.tryDrain(this::onAccess);
+		}
+	}
+
+	@Override
+	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
+	{
+		readBuffer.drain(this::onAccess);
+		// an update is an access
+		if (oldWrapper!=null && oldWrapper.getRegion()!=0) increment(oldWrapper, newWrapper);
+		else link(newWrapper, 1, null);
+		lastWritten = newWrapper;
+		countAccess();
+	}
+
+	@Override
+	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		readBuffer.drain(this::onAccess);
+		if (w.getRegion()!=0) unlink(w);
+		if (lastWritten==w) lastWritten = null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Key getForDeletion ()
+	{
+		readBuffer.drain(this::onAccess);
+		if (first==null) return null;
+
+		var victim = first.entries.first();
+		if (victim==lastWritten && size>1) {
+			victim = victim.getSucc()!=null?(Wrapper)victim.getSucc():first.succ.entries.first();
+		}
+		return victim.getKey();
+	}
+
+	@Override
+	public void onClear ()
+	{
+		readBuffer.clear();
+		buckets.clear();
+		first = null;
+		last = null;
+		size = 0;
+		accesses = 0;
+		lastWritten = null;
+	}
+
+	@Override
+	public Wrapper createWrapper (final Key k, final Value v) {
+		return wrapper.apply(k, v);
+	}
+
+	@Override
+	public Value unwrap (final Wrapper w)
+	{
+		if (w==null) return null;
+		return unWrapper.apply(w);
+	}
+}
@@ -7,6 +7,17 @@ import java.util.function.Function;
 import com.github.ds67.jminicache.impl.payload.ListWrapper;
 import com.github.ds67.jminicache.impl.payload.PayloadIF;
 
+/**
+ * Least recently used eviction. Reads are not applied to the list immediately but recorded in a {@link ReadBuffer} and
+ * replayed in batches. Therefore reads do not need an exclusive lock and can run in parallel. The replay is done by a 
+ * reader when the buffer fills up and always before the list is changed by a write, deletion or eviction.
+ * 
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
 public class LRUManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> extends ListEvictionManager<Key, Value, Wrapper> implements EvictionManagerIF<Key, Value, Wrapper> {
 	
 	public LRUManager(final BiFunction<Key, Value, Wrapper> constructor,
@@ -14,18 +25,26 @@ public class LRUManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? ext
 		super(constructor,unWrapper);
 	}
 	
+	private final ReadBuffer<Wrapper> readBuffer = new ReadBuffer<>();
+	
+	private void onAccess (final Wrapper w)
+	{
+		delete (w);
+		append (w);
+	}
+	
 	@Override
 	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
 	{
-		if (w!=null) {
-			delete (w);
-			append (w);
+		if (w!=null && readBuffer.record(w)) {
+			readBuffer.tryDrain(this::onAccess);
 		}
 	}
 	
 	@Override
 	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
 	{
+		readBuffer.drain(this::onAccess);
 		if (oldWrapper!=null) {
 			delete(oldWrapper);
 		}		
@@ -36,17 +55,20 @@ public class LRUManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? ext
 	@Override
 	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
 	{
+		readBuffer.drain(this::onAccess);
 		delete (w);
 	}
 	
 	public Key getForDeletion ()
 	{
+		readBuffer.drain(this::onAccess);
 		return getFirstEntry().getKey();
 	}
 	
 	@Override
 	public void onClear ()
 	{
+		readBuffer.clear();
 		clear();
 	}
 }
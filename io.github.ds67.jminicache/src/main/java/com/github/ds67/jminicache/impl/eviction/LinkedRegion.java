@@ -0,0 +1,87 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * Doubly linked list of {@link ListWrapper} entries for eviction managers which split their entries into several lists
+ * (regions). Every region has an id which is stored in the entries it holds, so a manager can find the region of an entry
+ * in O(1) time.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Key of the cache
+ * @param <Value> Value of the cache
+ * @param <Wrapper> Real object which ist stored as value by the storage manager.
+ */
+final class LinkedRegion<Key, Value, Wrapper extends ListWrapper<Key, Value, ? extends PayloadIF<Key, Value>>> {
+
+	private final int id;
+	private Wrapper first = null;
+	private Wrapper last = null;
+	private int size = 0;
+
+	LinkedRegion (final int id)
+	{
+		this.id=id;
+	}
+
+	boolean contains (final Wrapper w)
+	{
+		return w.getRegion()==id;
+	}
+
+	void append (final Wrapper w)
+	{
+		if (last!=null) {
+			last.setSucc(w);
+		}
+		w.setPred(last);
+		w.setSucc(null);
+		w.setRegion(id);
+		last = w;
+		if (first==null) first=last;
+		++size;
+	}
+
+	@SuppressWarnings("unchecked")
+	void delete (final Wrapper w)
+	{
+		w.onRemove();
+		if (first==w) {
+			first=(Wrapper)w.getSucc();
+		}
+		if (last==w) {
+			last=(Wrapper)w.getPred();
+		}
+		w.setRegion(0);
+		--size;
+	}
+
+	/**
+	 * Moves an entry of this region to its end
+	 */
+	void moveToEnd (final Wrapper w)
+	{
+		if (last==w) return;
+		delete(w);
+		append(w);
+	}
+
+	Wrapper first ()
+	{
+		return first;
+	}
+
+	int size ()
+	{
+		return size;
+	}
+
+	void clear ()
+	{
+		first=null;
+		last=null;
+		size=0;
+	}
+}
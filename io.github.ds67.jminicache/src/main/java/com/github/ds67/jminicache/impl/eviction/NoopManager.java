@@ -36,6 +36,7 @@ public class NoopManager<Key, Value, Wrapper> implements EvictionManagerIF<Key,
 	}
 	
 	public Value unwrap (Wrapper v) {
+		if (v==null) return null;
 		return unWrapper.apply(v);
 	}
 
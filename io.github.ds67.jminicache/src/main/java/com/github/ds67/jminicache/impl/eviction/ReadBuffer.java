@@ -0,0 +1,138 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Buffer to record read accesses of an eviction manager which reorganizes its structures upon reads (like LRU).
+ *
+ * Instead of reorganizing the structures on every read (which needs exclusive access) the reads are recorded in
+ * striped ring buffers. A thread always uses the same stripe, thus threads rarely contend on the same buffer.
+ * The buffers are lossy: when a stripe is full or another thread records at the same time the access is simply dropped.
+ * For eviction decisions this is good enough as hot entries are read often and will be recorded anyway.
+ *
+ * The recorded accesses are replayed in batches. Readers try to replay when a stripe is half full but will never wait
+ * for the replay lock. Writers must replay all recorded accesses before they change the structures, this guarantees that
+ * no access to an already removed entry is replayed later.
+ *
+ * Thread safety: {@link #record(Object)} and {@link #tryDrain(Consumer)} may be called by any number of threads in parallel
+ * (readers holding a shared lock). {@link #drain(Consumer)} and {@link #clear()} must only be called when no reader is active
+ * (e.g. by the writer holding the exclusive lock).
+ *
+ * @author Jens Ketterer
+ *
+ * @param <E> Type of the recorded elements
+ */
+final class ReadBuffer<E> {
+
+	private static final int BUFFER_SIZE = 16;
+	private static final int BUFFER_MASK = BUFFER_SIZE-1;
+	private static final int DRAIN_THRESHOLD = BUFFER_SIZE/2;
+
+	private static final class Stripe<E>
+	{
+		final AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+		final AtomicLong writeCounter = new AtomicLong();
+		// only written while holding the drain lock
+		volatile long readCounter = 0;
+	}
+
+	private final Stripe<E>[] stripes;
+	private final int stripeMask;
+	private final ReentrantLock drainLock = new ReentrantLock();
+
+	@SuppressWarnings("unchecked")
+	ReadBuffer ()
+	{
+		// Use the next power of two of the available processors as number of stripes
+		final int processors = Runtime.getRuntime().availableProcessors();
+		final int stripeCount = Math.min(64, Integer.highestOneBit(Math.max(1, processors-1))<<1);
+		stripes = (Stripe<E>[]) new Stripe<?>[stripeCount];
+		for (int i=0;i<stripeCount;i++) stripes[i] = new Stripe<E>();
+		stripeMask = stripeCount-1;
+	}
+
+	/**
+	 * Records an access. The access might be dropped when the buffer is full or contended.
+	 *
+	 * @param e accessed element
+	 * @return <code>true</code> when the buffer should be drained
+	 */
+	boolean record (final E e)
+	{
+		final var stripe = stripes[(int)Thread.currentThread().getId() & stripeMask];
+		final long tail = stripe.writeCounter.get();
+		final long size = tail-stripe.readCounter;
+		if (size>=BUFFER_SIZE) {
+			// buffer full, drop the access
+			return true;
+		}
+		if (stripe.writeCounter.compareAndSet(tail, tail+1)) {
+			stripe.slots.lazySet((int)(tail & BUFFER_MASK), e);
+			return size+1>=DRAIN_THRESHOLD;
+		}
+		// another thread recorded at the same time, drop the access
+		return false;
+	}
+
+	/**
+	 * Replays the recorded accesses when no other thread is replaying right now.
+	 *
+	 * @param consumer function applying a single access to the eviction structures
+	 */
+	void tryDrain (final Consumer<E> consumer)
+	{
+		if (drainLock.tryLock()) {
+			try {
+				unsynchronized_drain(consumer);
+			}
+			finally {
+				drainLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Replays all recorded accesses. Waits until a concurrently running replay is finished.
+	 *
+	 * @param consumer function applying a single access to the eviction structures
+	 */
+	void drain (final Consumer<E> consumer)
+	{
+		drainLock.lock();
+		try {
+			unsynchronized_drain(consumer);
+		}
+		finally {
+			drainLock.unlock();
+		}
+	}
+
+	/**
+	 * Drops all recorded accesses
+	 */
+	void clear ()
+	{
+		drain((e) -> {});
+	}
+
+	private void unsynchronized_drain (final Consumer<E> consumer)
+	{
+		for (final var stripe: stripes) {
+			long head = stripe.readCounter;
+			final long tail = stripe.writeCounter.get();
+			while (head<tail) {
+				final int index = (int)(head & BUFFER_MASK);
+				final E e = stripe.slots.get(index);
+				// slot reserved but not yet written, continue with the next drain
+				if (e==null) break;
+				stripe.slots.lazySet(index, null);
+				consumer.accept(e);
+				++head;
+			}
+			stripe.readCounter = head;
+		}
+	}
+}
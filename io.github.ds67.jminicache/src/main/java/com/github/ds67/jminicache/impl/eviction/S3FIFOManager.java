@@ -0,0 +1,176 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * S3-FIFO eviction. New entries are put into a small FIFO queue (10% of the entries), entries which survive it go to the
+ * main FIFO queue. Every entry has a small access counter (up to 3), a read only increments the counter and does not change
+ * the queues. Therefore reads need no exclusive lock and run in parallel like for the {@link FIFOManager}.
+ *
+ * When the oldest entry of the small queue was read since its insertion it is moved to the main queue, otherwise it is
+ * deleted and its key is remembered in a ghost queue. Thus keys which are used only once leave the cache quickly. A new key
+ * found in the ghost queue goes directly to the main queue. The oldest entry of the main queue is deleted when it was not
+ * read since it was checked the last time, otherwise its counter is decremented and it is put back to the end of the queue.
+ *
+ * The region sizes are derived from the capacity passed with {@link #onCapacityChange(int)}.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
+public class S3FIFOManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	private static final int SMALL_PERCENT = 10;
+	private static final int MAX_HITS = 3;
+
+	private final LinkedRegion<Key, Value, Wrapper> small = new LinkedRegion<>(1);
+	private final LinkedRegion<Key, Value, Wrapper> main = new LinkedRegion<>(2);
+	// Keys of entries evicted from the small queue in eviction order
+	private final LinkedHashSet<Key> ghosts = new LinkedHashSet<>();
+	// Maximum number of entries, -1 when unknown
+	private int capacity = -1;
+	// Entry returned by getForDeletion, its key goes to the ghost queue when it is deleted from the small queue
+	private Wrapper evicting = null;
+
+	private final BiFunction<Key, Value, Wrapper> wrapper;
+	private final Function<Wrapper, Value> unWrapper;
+
+	public S3FIFOManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) {
+		this.wrapper=constructor;
+		this.unWrapper=unWrapper;
+	}
+
+	private int capacity ()
+	{
+		return capacity>0?capacity:small.size()+main.size();
+	}
+	
+	private int maxSmall ()
+	{
+		return Math.max(1, capacity()*SMALL_PERCENT/100);
+	}
+	
+	private void trimGhosts ()
+	{
+		final int maxGhosts = Math.max(1, capacity()-maxSmall());
+		while (ghosts.size()>maxGhosts) {
+			final Iterator<Key> iterator = ghosts.iterator();
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	private LinkedRegion<Key, Value, Wrapper> regionOf (final Wrapper w)
+	{
+		if (small.contains(w)) return small;
+		if (main.contains(w)) return main;
+		return null;
+	}
+
+	@Override
+	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (w!=null) w.recordHit(MAX_HITS);
+	}
+
+	@Override
+	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
+	{
+		final var region = oldWrapper==null?null:regionOf(oldWrapper);
+		if (region!=null) {
+			// an update is an access
+			newWrapper.setHits(Math.min(MAX_HITS, oldWrapper.getHits()+1));
+			region.delete(oldWrapper);
+			region.append(newWrapper);
+		}
+		else if (ghosts.remove(newWrapper.getKey())) {
+			main.append(newWrapper);
+		}
+		else {
+			small.append(newWrapper);
+		}
+	}
+
+	@Override
+	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		final var region = regionOf(w);
+		if (region==null) return;
+		region.delete(w);
+
+		// only keys evicted from the small queue are remembered, not the removed or expired ones
+		if (w==evicting) {
+			evicting = null;
+			if (region==small) {
+				ghosts.add(w.getKey());
+				trimGhosts();
+			}
+		}
+	}
+
+	@Override
+	public Key getForDeletion ()
+	{
+		final int maxSmall = maxSmall();
+		// reads count hits without the write lock, therefore stop after two full passes and evict the entry under the hand
+		int steps = 2*(small.size()+main.size());
+
+		while (small.size()+main.size()>0) {
+			final boolean fromSmall = small.size()>0 && (small.size()>maxSmall || main.size()==0);
+			final var candidate = fromSmall?small.first():main.first();
+			final int hits = candidate.getHits();
+			if (hits==0 || steps--==0) {
+				evicting = candidate;
+				return candidate.getKey();
+			}
+			if (fromSmall) {
+				small.delete(candidate);
+				candidate.setHits(0);
+				main.append(candidate);
+			}
+			else {
+				candidate.setHits(hits-1);
+				main.moveToEnd(candidate);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void onCapacityChange (final int capacity)
+	{
+		this.capacity = capacity;
+		trimGhosts();
+	}
+
+	@Override
+	public void onClear ()
+	{
+		small.clear();
+		main.clear();
+		ghosts.clear();
+		evicting = null;
+	}
+
+	@Override
+	public Wrapper createWrapper (final Key k, final Value v) {
+		return wrapper.apply(k, v);
+	}
+
+	@Override
+	public Value unwrap (final Wrapper w)
+	{
+		if (w==null) return null;
+		return unWrapper.apply(w);
+	}
+}
@@ -0,0 +1,137 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * Segmented LRU eviction. The entries are kept in two LRU lists: new entries go to the probation list and are promoted to
+ * the protected list when they are accessed again. When the protected list exceeds {@link #PROTECTED_PERCENT} percent of
+ * the entries its least recently used entry is demoted to the most recently used end of the probation list, so it gets
+ * another chance. Entries are always evicted from the probation list first.
+ *
+ * Thus keys which are used only once (like a batch scan) pass through the probation list without flushing the entries
+ * which are read again and again.
+ *
+ * The capacity is passed with {@link #onCapacityChange(int)}. Reads are recorded in a {@link ReadBuffer} as done by the {@link LRUManager}.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
+public class SLRUManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	private static final int PROTECTED_PERCENT = 80;
+
+	private final LinkedRegion<Key, Value, Wrapper> probation = new LinkedRegion<>(1);
+	private final LinkedRegion<Key, Value, Wrapper> protect = new LinkedRegion<>(2);
+	// Maximum size of the protected list, unlimited while the capacity is unknown
+	private int maxProtected = Integer.MAX_VALUE;
+
+	private final ReadBuffer<Wrapper> readBuffer = new ReadBuffer<>();
+
+	private final BiFunction<Key, Value, Wrapper> wrapper;
+	private final Function<Wrapper, Value> unWrapper;
+
+	public SLRUManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) {
+		this.wrapper=constructor;
+		this.unWrapper=unWrapper;
+	}
+
+	private void onAccess (final Wrapper w)
+	{
+		if (probation.contains(w)) {
+			probation.delete(w);
+			protect.append(w);
+			demoteOverflow();
+		}
+		else if (protect.contains(w)) {
+			protect.moveToEnd(w);
+		}
+	}
+
+	/**
+	 * Moves the least recently used entries of the protected list to the probation list until the protected list fits
+	 */
+	private void demoteOverflow ()
+	{
+		while (protect.size()>maxProtected) {
+			final var w = protect.first();
+			protect.delete(w);
+			probation.append(w);
+		}
+	}
+
+	@Override
+	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (w!=null && readBuffer.record(w)) {
+			readBuffer.tryDrain(this::onAccess);
+		}
+	}
+
+	@Override
+	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
+	{
+		readBuffer.drain(this::onAccess);
+		if (oldWrapper!=null && (probation.contains(oldWrapper) || protect.contains(oldWrapper))) {
+			// an update is an access
+			(probation.contains(oldWrapper)?probation:protect).delete(oldWrapper);
+			protect.append(newWrapper);
+			demoteOverflow();
+		}
+		else {
+			probation.append(newWrapper);
+		}
+	}
+
+	@Override
+	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		readBuffer.drain(this::onAccess);
+		if (probation.contains(w)) probation.delete(w);
+		else if (protect.contains(w)) protect.delete(w);
+	}
+
+	@Override
+	public Key getForDeletion ()
+	{
+		readBuffer.drain(this::onAccess);
+
+		final var w = probation.size()>0?probation.first():protect.first();
+		return w==null?null:w.getKey();
+	}
+
+	@Override
+	public void onCapacityChange (final int capacity)
+	{
+		maxProtected = capacity>0?Math.max(1, capacity*PROTECTED_PERCENT/100):Integer.MAX_VALUE;
+		demoteOverflow();
+	}
+
+	@Override
+	public void onClear ()
+	{
+		readBuffer.clear();
+		probation.clear();
+		protect.clear();
+	}
+
+	@Override
+	public Wrapper createWrapper (final Key k, final Value v) {
+		return wrapper.apply(k, v);
+	}
+
+	@Override
+	public Value unwrap (final Wrapper w)
+	{
+		if (w==null) return null;
+		return unWrapper.apply(w);
+	}
+}
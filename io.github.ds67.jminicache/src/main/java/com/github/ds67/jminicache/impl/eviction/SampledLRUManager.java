@@ -0,0 +1,149 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.SampledPayloadIF;
+
+/**
+ * Approximated least recently used eviction by sampling. Every entry stores the time of its last access, a read only
+ * writes this time and does not change any structure. Therefore reads need no exclusive lock and run in parallel like
+ * for the {@link FIFOManager}.
+ *
+ * For eviction {@link #SAMPLES} random entries are compared and the one with the oldest access is deleted. Thus the
+ * deleted entry is among the least recently used ones but not necessarily the least recently used entry.
+ *
+ * The entries are not linked, they are referenced from an array (to pick random entries) and know their position
+ * in the array. Compared to the {@link LRUManager} an entry needs no {@link com.github.ds67.jminicache.impl.payload.ListWrapper},
+ * which saves one object per entry.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the payload which carries the access time
+ */
+public class SampledLRUManager<Key, Value, Wrapper extends SampledPayloadIF<Key, Value>> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	static final int SAMPLES = 5;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Object[] entries = new Object[INITIAL_CAPACITY];
+	private int size = 0;
+	// The entry which was written last is not deleted, otherwise a new entry might be removed immediately
+	private Wrapper lastWritten = null;
+
+	private final BiFunction<Key, Value, Wrapper> wrapper;
+	private final Function<Wrapper, Value> unWrapper;
+
+	public SampledLRUManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) {
+		this.wrapper=constructor;
+		this.unWrapper=unWrapper;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Wrapper entry (final int slot)
+	{
+		return (Wrapper)entries[slot];
+	}
+
+	private boolean contains (final Wrapper w)
+	{
+		final int slot = w.getSlot();
+		return slot>=0 && slot<size && entries[slot]==w;
+	}
+
+	private void add (final Wrapper w)
+	{
+		if (size==entries.length) entries = Arrays.copyOf(entries, 2*size);
+		w.setSlot(size);
+		entries[size++] = w;
+	}
+
+	/**
+	 * Removes an entry by moving the last entry of the array to its slot
+	 */
+	private void remove (final Wrapper w)
+	{
+		final int slot = w.getSlot();
+		final var moved = entry(--size);
+		entries[slot] = moved;
+		moved.setSlot(slot);
+		entries[size] = null;
+		w.setSlot(-1);
+		if (entries.length>INITIAL_CAPACITY && size<entries.length/4) entries = Arrays.copyOf(entries, entries.length/2);
+	}
+
+	@Override
+	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (w!=null) w.setLastAccess(System.nanoTime());
+	}
+
+	@Override
+	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
+	{
+		if (oldWrapper!=null && contains(oldWrapper)) {
+			final int slot = oldWrapper.getSlot();
+			entries[slot] = newWrapper;
+			newWrapper.setSlot(slot);
+			oldWrapper.setSlot(-1);
+		}
+		else {
+			add(newWrapper);
+		}
+		newWrapper.setLastAccess(System.nanoTime());
+		lastWritten = newWrapper;
+	}
+
+	@Override
+	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (contains(w)) remove(w);
+		if (lastWritten==w) lastWritten = null;
+	}
+
+	@Override
+	public Key getForDeletion ()
+	{
+		if (size==0) return null;
+		if (size==1) return entry(0).getKey();
+
+		// draw from all slots but the one of the last written entry
+		final int excluded = lastWritten!=null && contains(lastWritten)?lastWritten.getSlot():size;
+		final int range = excluded<size?size-1:size;
+		final var random = ThreadLocalRandom.current();
+		Wrapper oldest = null;
+		for (int i=0;i<SAMPLES;i++) {
+			int slot = random.nextInt(range);
+			if (slot>=excluded) ++slot;
+			final var candidate = entry(slot);
+			if (oldest==null || candidate.getLastAccess()-oldest.getLastAccess()<0) oldest = candidate;
+		}
+		return oldest.getKey();
+	}
+
+	@Override
+	public void onClear ()
+	{
+		entries = new Object[INITIAL_CAPACITY];
+		size = 0;
+		lastWritten = null;
+	}
+
+	@Override
+	public Wrapper createWrapper (final Key k, final Value v) {
+		return wrapper.apply(k, v);
+	}
+
+	@Override
+	public Value unwrap (final Wrapper w)
+	{
+		if (w==null) return null;
+		return unWrapper.apply(w);
+	}
+}
@@ -0,0 +1,86 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * SIEVE eviction. The entries are kept in insertion order as done by the {@link FIFOManager}. A read only marks the entry
+ * as visited, it does not change the list. Therefore reads need no exclusive lock and run in parallel like for FIFO.
+ *
+ * For eviction a hand moves from the oldest to the newest entry (and starts again with the oldest one). Visited entries
+ * are unmarked and skipped, the first entry which was not visited since the hand passed it the last time is deleted.
+ * The hand stays at its position between evictions, thus entries which are read again survive while new entries which
+ * are never read again leave the cache quickly. The hit rate is close to LRU.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
+public class SieveManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> extends ListEvictionManager<Key, Value, Wrapper> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	// Next entry to check for eviction, null to start with the oldest entry
+	private Wrapper hand = null;
+
+	public SieveManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) 
+	{
+		super(constructor, unWrapper);
+	}
+
+	@Override
+	public void onRead(final Map<Key, Wrapper> cache, final Wrapper w) {
+		if (w!=null) w.recordHit(1);
+	}
+
+	@Override
+	public void onWrite(final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper) {
+		if (oldWrapper!=null) {
+			remove(oldWrapper);
+			// an update is an access
+			newWrapper.setHits(1);
+		}
+		append(newWrapper);
+	}
+
+	@Override
+	public void onDeletion(final Map<Key, Wrapper> cache, final Wrapper w) {
+		remove(w);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void remove (final Wrapper w)
+	{
+		if (hand==w) hand=(Wrapper)w.getSucc();
+		delete(w);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Key getForDeletion() {
+		var w = hand!=null?hand:getFirstEntry();
+		if (w==null) return null;
+		// reads mark entries without the write lock, therefore stop after two full passes and evict the entry under the hand
+		final var start = w;
+		int passes = 0;
+		while (w.getHits()>0) {
+			w.setHits(0);
+			w = w.getSucc()!=null?(Wrapper)w.getSucc():getFirstEntry();
+			if (w==start && ++passes==2) break;
+		}
+		hand = w;
+		return w.getKey();
+	}
+	
+	@Override
+	public void onClear ()
+	{
+		hand = null;
+		clear();
+	}
+}
@@ -0,0 +1,192 @@
+package com.github.ds67.jminicache.impl.eviction;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
+
+/**
+ * Window TinyLFU eviction. New entries are put into a small LRU admission window (1% of the entries). Entries leaving the
+ * window are candidates for the main region, which is a segmented LRU: entries enter its probation part and are promoted
+ * to the protected part (80% of the main region) when read again.
+ *
+ * A candidate is only admitted to the main region when it was accessed more often than the entry which would be evicted
+ * for it (the victim, the least recently used entry of the probation part). Otherwise the candidate itself is evicted.
+ * The access frequencies are estimated by a {@link FrequencySketch} which also counts keys that are no longer cached
+ * and which is aged periodically. Thus keys which are read only once (e.g. by scans) can not flush frequently used entries
+ * from the cache, while the window still gives new entries the chance to build up a frequency.
+ *
+ * The region sizes and the size of the sketch are derived from the capacity passed with {@link #onCapacityChange(int)}, 
+ * the sketch keeps its counts until the capacity grows. Reads are recorded in a {@link ReadBuffer} as done by the {@link LRUManager}.
+ *
+ * @author Jens Ketterer
+ *
+ * @param <Key> Type of the cache key
+ * @param <Value> Type of the cache values
+ * @param <Wrapper> Type of the wrapper which will help organizing the items in eviction order
+ */
+public class TinyLFUManager<Key, Value, Wrapper extends ListWrapper<Key,Value, ? extends PayloadIF<Key, Value>>> implements EvictionManagerIF<Key, Value, Wrapper> {
+
+	private static final int WINDOW_PERCENT = 1;
+	private static final int PROTECTED_PERCENT = 80;
+
+	private final LinkedRegion<Key, Value, Wrapper> window = new LinkedRegion<>(1);
+	private final LinkedRegion<Key, Value, Wrapper> probation = new LinkedRegion<>(2);
+	private final LinkedRegion<Key, Value, Wrapper> protectedRegion = new LinkedRegion<>(3);
+
+	private final FrequencySketch<Key> sketch = new FrequencySketch<>();
+	// Maximum number of entries, -1 when unknown
+	private int capacity = -1;
+	private final ReadBuffer<Wrapper> readBuffer = new ReadBuffer<>();
+
+	private final BiFunction<Key, Value, Wrapper> wrapper;
+	private final Function<Wrapper, Value> unWrapper;
+
+	public TinyLFUManager(final BiFunction<Key, Value, Wrapper> constructor,
+			final Function<Wrapper, Value> unWrapper) {
+		this.wrapper=constructor;
+		this.unWrapper=unWrapper;
+	}
+
+	private int size ()
+	{
+		return window.size()+probation.size()+protectedRegion.size();
+	}
+	
+	private int capacity ()
+	{
+		return capacity>0?capacity:size();
+	}
+
+	private void onAccess (final Wrapper w)
+	{
+		sketch.increment(w.getKey());
+		if (window.contains(w)) {
+			window.moveToEnd(w);
+		}
+		else if (probation.contains(w)) {
+			probation.delete(w);
+			protectedRegion.append(w);
+			// demote the least recently used protected entries when the protected region got too large
+			final int maxProtected = (capacity()-maxWindow())*PROTECTED_PERCENT/100;
+			while (protectedRegion.size()>Math.max(1, maxProtected)) {
+				final var demoted = protectedRegion.first();
+				protectedRegion.delete(demoted);
+				probation.append(demoted);
+			}
+		}
+		else if (protectedRegion.contains(w)) {
+			protectedRegion.moveToEnd(w);
+		}
+	}
+
+	private int maxWindow ()
+	{
+		return Math.max(1, capacity()*WINDOW_PERCENT/100);
+	}
+
+	private LinkedRegion<Key, Value, Wrapper> regionOf (final Wrapper w)
+	{
+		if (window.contains(w)) return window;
+		if (probation.contains(w)) return probation;
+		if (protectedRegion.contains(w)) return protectedRegion;
+		return null;
+	}
+
+	@Override
+	public void onRead (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		if (w!=null && readBuffer.record(w)) {
+			readBuffer.tryDrain(this::onAccess);
+		}
+	}
+
+	@Override
+	public void onWrite (final Map<Key, Wrapper> cache, final Wrapper newWrapper, final Wrapper oldWrapper)
+	{
+		readBuffer.drain(this::onAccess);
+		sketch.increment(newWrapper.getKey());
+		final var region = oldWrapper==null?null:regionOf(oldWrapper);
+		if (region!=null) {
+			// an updated entry keeps its region
+			region.delete(oldWrapper);
+			region.append(newWrapper);
+		}
+		else {
+			window.append(newWrapper);
+		}
+	}
+
+	@Override
+	public void onDeletion (final Map<Key, Wrapper> cache, final Wrapper w)
+	{
+		readBuffer.drain(this::onAccess);
+		final var region = regionOf(w);
+		if (region!=null) region.delete(w);
+	}
+
+	private Wrapper mainVictim ()
+	{
+		return probation.first()!=null?probation.first():protectedRegion.first();
+	}
+
+	/**
+	 * Moves the entries which exceed the window to the main region. While the main region is not full yet (the cache 
+	 * filled up for the first time or the maximum size was raised) the entries are moved without further checks. Otherwise
+	 * a candidate is only admitted when it is accessed more often than the victim, the loser is returned for deletion.
+	 */
+	@Override
+	public Key getForDeletion ()
+	{
+		readBuffer.drain(this::onAccess);
+
+		final int maxWindow = maxWindow();
+		final int maxMain = capacity()-maxWindow;
+		while (window.size()>maxWindow) {
+			final var candidate = window.first();
+			if (probation.size()+protectedRegion.size()>=maxMain) {
+				final var victim = mainVictim();
+				if (victim==null || sketch.frequency(candidate.getKey())<=sketch.frequency(victim.getKey())) return candidate.getKey();
+				window.delete(candidate);
+				probation.append(candidate);
+				return victim.getKey();
+			}
+			window.delete(candidate);
+			probation.append(candidate);
+		}
+
+		final var victim = mainVictim();
+		if (victim!=null) return victim.getKey();
+		return window.first()==null?null:window.first().getKey();
+	}
+
+	@Override
+	public void onCapacityChange (final int capacity)
+	{
+		this.capacity = capacity;
+		if (capacity>0) sketch.ensureCapacity(capacity);
+	}
+
+	@Override
+	public void onClear ()
+	{
+		readBuffer.clear();
+		window.clear();
+		probation.clear();
+		protectedRegion.clear();
+	}
+
+	@Override
+	public Wrapper createWrapper (final Key k, final Value v) {
+		return wrapper.apply(k, v);
+	}
+
+	@Override
+	public Value unwrap (final Wrapper w)
+	{
+		if (w==null) return null;
+		return unWrapper.apply(w);
+	}
+}
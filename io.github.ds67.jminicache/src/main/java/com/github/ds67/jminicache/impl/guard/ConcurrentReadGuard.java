@@ -0,0 +1,58 @@
+package com.github.ds67.jminicache.impl.guard;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Guard for storages which allow reads in parallel to a write (like a {@link java.util.concurrent.ConcurrentHashMap}).
+ *
+ * Reads do not lock at all, therefore no shared counter needs to be updated on every read. Writes are still serialized
+ * with a single lock.
+ *
+ * This guard must only be used when reading the storage has no side effects on shared structures, e.g. a LRU
+ * eviction manager which reorders its list on every read is not allowed.
+ *
+ * @author Jens Ketterer
+ *
+ */
+public class ConcurrentReadGuard implements GuardIF {
+
+	private final ReentrantLock guard = new ReentrantLock();
+
+	public ConcurrentReadGuard() {
+	}
+
+	@Override
+	public void lockRead() {
+	}
+
+	@Override
+	public void lockWrite() {
+		guard.lock();
+	}
+
+	@Override
+	public boolean promoteLock() {
+		// Reads are not locked, thus other threads could have written in the meantime
+		guard.lock();
+		return true;
+	}
+
+	@Override
+	public void yield ()
+	{
+		if (guard.hasQueuedThreads()) {
+			guard.unlock();
+			guard.lock();
+		}
+	}
+
+	@Override
+	public void unlockRead() {
+	}
+
+	@Override
+	public void unlockWrite() {
+		guard.unlock();
+	}
+
+}
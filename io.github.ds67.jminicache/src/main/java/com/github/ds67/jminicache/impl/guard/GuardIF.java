@@ -37,6 +37,34 @@ public interface GuardIF {
 	 */
 	public boolean promoteLock();
 	
+	/**
+	 * Tries to promote an existing read lock atomically to a write lock. When this succeeds no other thread could have 
+	 * written in between and values read before are still valid. 
+	 * 
+	 * When the promotion is not possible nothing changes and {@link #promoteLock()} must be used.
+	 * 
+	 * @return <code>true</code> when the read lock was converted to a write lock, <code>false</code> when the lock status didn't change
+	 */
+	default public boolean tryPromoteLock()
+	{
+		return false;
+	}
+	
+	/**
+	 * Tries to execute a read without acquiring a lock. The result is only returned when no write happened during the execution.
+	 * The function must not have any side effects, might observe an inconsistent state and must tolerate this.
+	 * 
+	 * Guards which do not support optimistic reads simply return <code>null</code>.
+	 * 
+	 * @param <R> Return type of the supplied function
+	 * @param f function which is called without lock 
+	 * @return the result of the supplier function f or <code>null</code> when no consistent result could be retrieved
+	 */
+	default public <R> R tryOptimisticRead (Supplier<R> f)
+	{
+		return null;
+	}
+	
 	/**
 	 * Can be called when there is a long lasting lock. When other threads wait for lock aquiring these threads will be
 	 * preferred executed. After these executions the current write lock is reestablished.
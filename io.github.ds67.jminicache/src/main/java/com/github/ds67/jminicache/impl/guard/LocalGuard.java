@@ -53,6 +53,16 @@ public class LocalGuard implements GuardIF
 		}
 	}
 
+	@Override
+	public boolean tryPromoteLock() {
+		if (guard.tryPromoteLock()) {
+			readLock = false;
+			writeLock= true;
+			return true;
+		}
+		return false;
+	}
+
 	@Override
 	public boolean promoteLock() {
 		final boolean r = guard.promoteLock();
@@ -0,0 +1,55 @@
+package com.github.ds67.jminicache.impl.guard;
+
+/**
+ * Guard which combines the guards of all segments of a segmented cache. It is used for operations which need
+ * a consistent view on the whole cache (like {@link #readLocked(Runnable)} for iterating all entries or clearing the cache).
+ *
+ * The guards are always locked in the same order and unlocked in reverse order to avoid dead locks between
+ * concurrent whole cache operations.
+ *
+ * @author Jens Ketterer
+ *
+ */
+public class SegmentedGuard implements GuardIF {
+
+	private final GuardIF[] guards;
+
+	public SegmentedGuard(final GuardIF[] guards) {
+		this.guards=guards;
+	}
+
+	@Override
+	public void lockRead() {
+		for (final var guard: guards) guard.lockRead();
+	}
+
+	@Override
+	public void lockWrite() {
+		for (final var guard: guards) guard.lockWrite();
+	}
+
+	@Override
+	public void unlockRead() {
+		for (int i=guards.length-1;i>=0;i--) guards[i].unlockRead();
+	}
+
+	@Override
+	public void unlockWrite() {
+		for (int i=guards.length-1;i>=0;i--) guards[i].unlockWrite();
+	}
+
+	@Override
+	public boolean promoteLock() {
+		// Promoting the segments one by one could dead lock with another thread doing the same,
+		// therefore all read locks are released before the write locks are acquired
+		unlockRead();
+		lockWrite();
+		return true;
+	}
+
+	@Override
+	public void yield() {
+		for (final var guard: guards) guard.yield();
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.github.ds67.jminicache.impl.guard;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Guard based on a {@link StampedLock}.
+ *
+ * Reads may be done optimistically without acquiring a lock at all (see {@link #tryOptimisticRead(Supplier)}). Read locks
+ * are promoted atomically to write locks when no other reader holds the lock, thus a second read after the promotion is
+ * not necessary.
+ *
+ * In contrast to the other guards this guard is not reentrant. Do not call cache methods within
+ * {@link com.github.ds67.jminicache.MiniCache#writeLocked(Runnable)} or
+ * {@link com.github.ds67.jminicache.MiniCache#readLocked(Runnable)}.
+ *
+ * @author Jens Ketterer
+ *
+ */
+public class StampedGuard implements GuardIF {
+
+	private final StampedLock guard = new StampedLock();
+
+	// Stamp of the last read lock of a thread, necessary to convert the read lock into a write lock
+	private final ThreadLocal<long[]> readStamp = ThreadLocal.withInitial(() -> new long[1]);
+	
+	// Thread which holds the write lock, a promotion by this thread must not wait for itself
+	private volatile Thread writer = null;
+
+	private final boolean optimisticReads;
+
+	/**
+	 * @param optimisticReads <code>true</code> when the guarded structures allow reads in parallel to writes
+	 *        (reads must not change any structure and must not run into endless loops on inconsistent states)
+	 */
+	public StampedGuard(boolean optimisticReads) {
+		this.optimisticReads=optimisticReads;
+	}
+
+	@Override
+	public void lockRead() {
+		readStamp.get()[0] = guard.readLock();
+	}
+
+	@Override
+	public void lockWrite() {
+		guard.writeLock();
+		writer = Thread.currentThread();
+	}
+
+	@Override
+	public boolean tryPromoteLock() {
+		if (writer==Thread.currentThread()) return false;
+		if (guard.tryConvertToWriteLock(readStamp.get()[0])==0) return false;
+		writer = Thread.currentThread();
+		return true;
+	}
+
+	@Override
+	public boolean promoteLock() {
+		// the write lock is already held, the stored read stamp is stale
+		if (writer==Thread.currentThread()) return false;
+		if (tryPromoteLock()) return true;
+		guard.tryUnlockRead();
+		lockWrite();
+		return true;
+	}
+
+	@Override
+	public <R> R tryOptimisticRead (Supplier<R> f)
+	{
+		if (!optimisticReads) return null;
+
+		final long stamp = guard.tryOptimisticRead();
+		if (stamp==0) return null;
+		try {
+			final R result = f.get();
+			if (guard.validate(stamp)) return result;
+		}
+		catch (RuntimeException e) {
+			// An inconsistent state was observed due to a parallel write. Retry with a lock
+		}
+		return null;
+	}
+
+	@Override
+	public void yield ()
+	{
+		// A stamped lock provides no information about waiting threads, so just give them a chance
+		writer = null;
+		guard.tryUnlockWrite();
+		Thread.yield();
+		lockWrite();
+	}
+
+	@Override
+	public void unlockRead() {
+		guard.tryUnlockRead();
+	}
+
+	@Override
+	public void unlockWrite() {
+		writer = null;
+		guard.tryUnlockWrite();
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.github.ds67.jminicache.impl.payload;
+
+/**
+ * Wrapper which keeps the data of the GreedyDual-Size-Frequency eviction: the load time, the access frequency, the 
+ * priority and the position of the entry in the priority heap. Only the eviction manager changes these fields while
+ * holding the write lock of the cache.
+ */
+public class GreedyDualWrapper<Key, Payload, Wrapper extends PayloadIF<Key, Payload>> implements PayloadIF<Key, Payload>
+{
+	private final Wrapper wrapper;
+	private long loadTime = 0;
+	private int frequency = 0;
+	private double priority = 0;
+	private int slot = -1;
+
+	public GreedyDualWrapper (final Wrapper wrapper)
+	{
+		this.wrapper=wrapper;
+	}
+
+	public int getFrequency() {
+		return frequency;
+	}
+
+	public void setFrequency(final int frequency) {
+		this.frequency = frequency;
+	}
+
+	public double getPriority() {
+		return priority;
+	}
+
+	public void setPriority(final double priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * @return position of the entry in the priority heap of the eviction manager, -1 when the entry is not stored there
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
+	public void setSlot(final int slot) {
+		this.slot = slot;
+	}
+
+	@Override
+	public long getLoadTime() {
+		return loadTime;
+	}
+
+	@Override
+	public void setLoadTime(final long loadTime) {
+		this.loadTime = loadTime;
+	}
+
+	@Override
+	public void onRemove ()
+	{
+		wrapper.onRemove();
+	}
+
+	@Override
+	public Payload getPayload() {
+		return wrapper.getPayload();
+	}
+
+	@Override
+	public Key getKey() {
+		return wrapper.getKey();
+	}
+
+	@Override
+	public long getExpiry() {
+		return wrapper.getExpiry();
+	}
+
+	@Override
+	public void setExpiry(long expiry) {
+		wrapper.setExpiry(expiry);
+	}
+
+	@Override
+	public long getRefreshAfter() {
+		return wrapper.getRefreshAfter();
+	}
+
+	@Override
+	public void setRefreshAfter(long refreshAfter) {
+		wrapper.setRefreshAfter(refreshAfter);
+	}
+
+	@Override
+	public boolean tryClaimRefresh(long now) {
+		return wrapper.tryClaimRefresh(now);
+	}
+
+	@Override
+	public int getWeight() {
+		return wrapper.getWeight();
+	}
+
+	@Override
+	public void setWeight(int weight) {
+		wrapper.setWeight(weight);
+	}
+}
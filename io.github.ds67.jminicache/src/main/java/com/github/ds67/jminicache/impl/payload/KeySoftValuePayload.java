@@ -2,10 +2,23 @@ package com.github.ds67.jminicache.impl.payload;
 
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 public class KeySoftValuePayload<Key, Value> extends SoftReference<Value> implements PayloadIF<Key, Value> {
 
 	private final Key key;
+	
+	// point in time when the entry expires, read without locks
+	private volatile long expiry = 0;
+	
+	// only written before the entry is stored
+	private int weight = 1;
+	
+	// written without holding the write lock of the cache when the refresh is claimed
+	private volatile long refreshAfter = 0;
+	
+	@SuppressWarnings("rawtypes")
+	private static final AtomicLongFieldUpdater<KeySoftValuePayload> REFRESH_AFTER = AtomicLongFieldUpdater.newUpdater(KeySoftValuePayload.class, "refreshAfter");
 
 	public KeySoftValuePayload(final Key key, final Value payload, final ReferenceQueue<Value> queue) 
 	{
@@ -29,4 +42,40 @@ public class KeySoftValuePayload<Key, Value> extends SoftReference<Value> implem
 		return key;
 	}
 
+	@Override
+	public long getExpiry() {
+		return expiry;
+	}
+
+	@Override
+	public void setExpiry(long expiry) {
+		this.expiry=expiry;
+	}
+
+	@Override
+	public long getRefreshAfter() {
+		return refreshAfter;
+	}
+
+	@Override
+	public void setRefreshAfter(long refreshAfter) {
+		this.refreshAfter=refreshAfter;
+	}
+
+	@Override
+	public int getWeight() {
+		return weight;
+	}
+
+	@Override
+	public void setWeight(int weight) {
+		this.weight=weight;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean tryClaimRefresh(long now) {
+		final long r = refreshAfter;
+		return r!=0 && r<=now && REFRESH_AFTER.compareAndSet(this, r, 0);
+	}
 }
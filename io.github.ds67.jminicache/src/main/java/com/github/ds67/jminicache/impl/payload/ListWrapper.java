@@ -5,11 +5,42 @@ public class ListWrapper<Key, Payload, Wrapper extends PayloadIF<Key, Payload>>
 	private ListWrapper<Key, Payload, Wrapper> pred = null;
 	private ListWrapper<Key, Payload, Wrapper> succ = null;
 	private final Wrapper wrapper;
-	
+	// Eviction managers which organize their entries in several lists store here which list holds the entry
+	private int region = 0;
+	// Access counter of eviction managers which do not reorder their lists on reads. It is written by readers in parallel, 
+	// thus increments might get lost
+	private volatile int hits = 0;
+
 	public ListWrapper (final Wrapper wrapper)
 	{
 		this.wrapper=wrapper;
 	}
+
+	public int getRegion() {
+		return region;
+	}
+
+	public void setRegion(final int region) {
+		this.region = region;
+	}
+
+	public int getHits() {
+		return hits;
+	}
+
+	public void setHits(final int hits) {
+		this.hits = hits;
+	}
+
+	/**
+	 * Counts an access without locking. Concurrent accesses may be counted only once.
+	 *
+	 * @param max maximum value of the counter
+	 */
+	public void recordHit(final int max) {
+		final int h = hits;
+		if (h<max) hits = h+1;
+	}
 	
 	public void onRemove ()
 	{
@@ -44,5 +75,39 @@ public class ListWrapper<Key, Payload, Wrapper extends PayloadIF<Key, Payload>>
 	public Key getKey() {
 		return wrapper.getKey();
 	}
-	
+
+	@Override
+	public long getExpiry() {
+		return wrapper.getExpiry();
+	}
+
+	@Override
+	public void setExpiry(long expiry) {
+		wrapper.setExpiry(expiry);
+	}
+
+	@Override
+	public long getRefreshAfter() {
+		return wrapper.getRefreshAfter();
+	}
+
+	@Override
+	public void setRefreshAfter(long refreshAfter) {
+		wrapper.setRefreshAfter(refreshAfter);
+	}
+
+	@Override
+	public boolean tryClaimRefresh(long now) {
+		return wrapper.tryClaimRefresh(now);
+	}
+
+	@Override
+	public int getWeight() {
+		return wrapper.getWeight();
+	}
+
+	@Override
+	public void setWeight(int weight) {
+		wrapper.setWeight(weight);
+	}
 }
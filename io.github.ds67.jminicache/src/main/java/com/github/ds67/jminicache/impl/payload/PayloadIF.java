@@ -8,4 +8,45 @@ public interface PayloadIF<Key, Value> {
 
 	public Key getKey();
 
-}
\ No newline at end of file
+	/**
+	 * @return point in time (epoch milliseconds) when the entry expires, 0 when it never expires
+	 */
+	public long getExpiry();
+	
+	public void setExpiry(long expiry);
+	
+	/**
+	 * @return point in time (epoch milliseconds) after which the value should be reloaded in the background, 0 when it is never reloaded
+	 */
+	public long getRefreshAfter();
+	
+	public void setRefreshAfter(long refreshAfter);
+	
+	/**
+	 * Claims the reload of the entry when the refresh time has passed. Succeeds for exactly one thread, thus the entry 
+	 * is reloaded only once. The refresh time is reset, use {@link #setRefreshAfter(long)} to allow a further reload.
+	 * 
+	 * @param now current time in epoch milliseconds
+	 * @return <code>true</code> when the calling thread must reload the entry
+	 */
+	public boolean tryClaimRefresh(long now);
+	
+	/**
+	 * @return weight of the entry as calculated by the weigher of the cache, 1 when no weigher is used
+	 */
+	public int getWeight();
+	
+	public void setWeight(int weight);
+	
+	/**
+	 * Only payloads of eviction managers which consider the cost of reloading an entry store the load time.
+	 * 
+	 * @return time in nanoseconds the value took to load, 0 when it is unknown
+	 */
+	public default long getLoadTime() {
+		return 0;
+	}
+	
+	public default void setLoadTime(long loadTime) {
+	}
+}
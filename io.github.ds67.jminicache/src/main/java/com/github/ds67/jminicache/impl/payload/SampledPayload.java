@@ -0,0 +1,35 @@
+package com.github.ds67.jminicache.impl.payload;
+
+public class SampledPayload<Key, Value> extends KeyValuePayload<Key, Value> implements SampledPayloadIF<Key, Value> {
+
+	// written by readers without holding the write lock of the cache
+	private volatile long lastAccess = System.nanoTime();
+	
+	// only written by the eviction manager while holding the write lock
+	private int slot = -1;
+	
+	public SampledPayload(final Key key, final Value payload) 
+	{
+		super(key, payload);
+	}
+
+	@Override
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
+	@Override
+	public void setLastAccess(long lastAccess) {
+		this.lastAccess=lastAccess;
+	}
+
+	@Override
+	public int getSlot() {
+		return slot;
+	}
+
+	@Override
+	public void setSlot(int slot) {
+		this.slot=slot;
+	}
+}
@@ -0,0 +1,21 @@
+package com.github.ds67.jminicache.impl.payload;
+
+/**
+ * Payload which carries the data of the sampling eviction directly, so no additional wrapper object is needed per entry.
+ */
+public interface SampledPayloadIF<Key, Value> extends PayloadIF<Key, Value> {
+
+	/**
+	 * @return point in time (as given by {@link System#nanoTime()}) of the last access to the entry
+	 */
+	public long getLastAccess();
+	
+	public void setLastAccess(long lastAccess);
+	
+	/**
+	 * @return position of the entry in the sample array of the eviction manager, -1 when the entry is not stored there
+	 */
+	public int getSlot();
+	
+	public void setSlot(int slot);
+}
@@ -0,0 +1,37 @@
+package com.github.ds67.jminicache.impl.payload;
+
+import java.lang.ref.ReferenceQueue;
+
+public class SampledSoftPayload<Key, Value> extends KeySoftValuePayload<Key, Value> implements SampledPayloadIF<Key, Value> {
+
+	// written by readers without holding the write lock of the cache
+	private volatile long lastAccess = System.nanoTime();
+	
+	// only written by the eviction manager while holding the write lock
+	private int slot = -1;
+	
+	public SampledSoftPayload(final Key key, final Value payload, final ReferenceQueue<Value> queue) 
+	{
+		super(key, payload, queue);
+	}
+
+	@Override
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
+	@Override
+	public void setLastAccess(long lastAccess) {
+		this.lastAccess=lastAccess;
+	}
+
+	@Override
+	public int getSlot() {
+		return slot;
+	}
+
+	@Override
+	public void setSlot(int slot) {
+		this.slot=slot;
+	}
+}
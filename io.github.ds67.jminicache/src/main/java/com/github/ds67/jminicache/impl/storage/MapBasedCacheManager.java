@@ -8,11 +8,17 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.github.ds67.jminicache.impl.eviction.EvictionManagerIF;
 import com.github.ds67.jminicache.impl.guard.GuardIF;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
 
+/**
+ * Storage based on a map. The stored wrappers must implement {@link PayloadIF} for {@link #getEntry(Object)} and 
+ * {@link #putEntry(Object, Object, Consumer)}.
+ */
 public class MapBasedCacheManager<Key, Value, Wrapper> implements StorageManagerIF<Key, Value, Wrapper>{
 
 	private final EvictionManagerIF<Key, Value, Wrapper> evictionManager;
@@ -21,6 +27,9 @@ public class MapBasedCacheManager<Key, Value, Wrapper> implements StorageManager
 	
 	private Map<Key, Wrapper> cache = new HashMap<>();
 	
+	// Sum of the weights of all entries
+	private long weight = 0;
+	
 	public MapBasedCacheManager(Supplier<Map<Key, Wrapper>> mapConstructor,
 			                    GuardIF guard, 
 			                    EvictionManagerIF<Key, Value, Wrapper> evictionManager) {
@@ -48,6 +57,11 @@ public class MapBasedCacheManager<Key, Value, Wrapper> implements StorageManager
 	public Key getForDeletion() {
 		return evictionManager.getForDeletion();
 	}
+	
+	@Override
+	public void setCapacity (final int capacity) {
+		evictionManager.onCapacityChange(capacity);
+	}
 
 	@Override
 	public Value put (Key key, Value value, BiFunction<Key, Value, Wrapper> wrapper)
@@ -55,16 +69,40 @@ public class MapBasedCacheManager<Key, Value, Wrapper> implements StorageManager
 		if (wrapper==null) wrapper=this::wrap;
 		final var w = wrapper.apply(key, value);
 		var oldWrapper = cache.put(key,w);
+		weight += weightOf(w)-weightOf(oldWrapper);
 		evictionManager.onWrite(cache, w, oldWrapper);	
 		return unwrap(oldWrapper);
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public Value putEntry (Key key, Value value, Consumer<PayloadIF<Key, Value>> initializer)
+	{
+		return put(key, value, (k, v) -> {
+			final var w = wrap(k, v);
+			initializer.accept((PayloadIF<Key, Value>)w);
+			return w;
+		});
+	}
+
 	@Override
 	public int cachesize ()
 	{
 		return cache.size();
 	}
 
+	@Override
+	public long weight ()
+	{
+		return weight;
+	}
+
+	@SuppressWarnings("unchecked")
+	private long weightOf (final Wrapper w)
+	{
+		return w==null?0:((PayloadIF<Key, Value>)w).getWeight();
+	}
+
 	@Override
 	public Value get (final Key key)
 	{ 
@@ -73,11 +111,28 @@ public class MapBasedCacheManager<Key, Value, Wrapper> implements StorageManager
 		return unwrap(w);
 	}
 	
+	@Override
+	@SuppressWarnings("unchecked")
+	public PayloadIF<Key, Value> getEntry (final Key key)
+	{ 
+		final var w = cache.get(key);
+		evictionManager.onRead(cache, w);		
+		return (PayloadIF<Key, Value>)w;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public PayloadIF<Key, Value> peekEntry (final Key key)
+	{ 
+		return (PayloadIF<Key, Value>)cache.get(key);
+	}
+	
 	@Override
 	public Value remove (Key key)
 	{
 		final var w = cache.remove(key);
 		if (w!=null) {
+			weight -= weightOf(w);
 			evictionManager.onDeletion(cache, w);
 			return unwrap(w);
 		}
@@ -96,6 +151,7 @@ public class MapBasedCacheManager<Key, Value, Wrapper> implements StorageManager
 	public void clear ()
 	{
 		cache.clear();
+		weight = 0;
 		evictionManager.onClear();
 	}
 	
@@ -123,4 +179,15 @@ public class MapBasedCacheManager<Key, Value, Wrapper> implements StorageManager
 		 }
 		 return result;
 	 }
+	 
+	 @Override
+	 @SuppressWarnings("unchecked")
+	 public Collection<PayloadIF<Key, Value>> entries ()
+	 {
+		 ArrayList<PayloadIF<Key, Value>> result = new ArrayList<>(cache.size());
+		 for (var entry: cache.values())  {
+			 result.add((PayloadIF<Key, Value>)entry);
+		 }
+		 return result;
+	 }
 }
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.github.ds67.jminicache.impl.guard.GuardIF;
@@ -33,6 +34,11 @@ public class SoftManager<Key, Value, Wrapper extends PayloadIF<Key, Value>> impl
 		cleanup();
 		return wrappedCacheManager.getForDeletion();
 	}
+	
+	@Override
+	public void setCapacity (final int capacity) {
+		wrappedCacheManager.setCapacity(capacity);
+	}
 
 	@Override
 	public int cachesize ()
@@ -41,6 +47,13 @@ public class SoftManager<Key, Value, Wrapper extends PayloadIF<Key, Value>> impl
 		return wrappedCacheManager.cachesize();
 	}
 
+	@Override
+	public long weight ()
+	{
+		cleanup();
+		return wrappedCacheManager.weight();
+	}
+
 	@Override
 	public Value get (final Key key)
 	{ 
@@ -48,6 +61,18 @@ public class SoftManager<Key, Value, Wrapper extends PayloadIF<Key, Value>> impl
 		return result;
 	}
 	
+	@Override
+	public PayloadIF<Key, Value> getEntry (final Key key)
+	{ 
+		return wrappedCacheManager.getEntry(key);
+	}
+	
+	@Override
+	public PayloadIF<Key, Value> peekEntry (final Key key)
+	{ 
+		return wrappedCacheManager.peekEntry(key);
+	}
+	
 	@Override
 	public Value remove (Key key)
 	{
@@ -102,6 +127,15 @@ public class SoftManager<Key, Value, Wrapper extends PayloadIF<Key, Value>> impl
 		return wrappedCacheManager.put(key, value, wrapper);
 	}
 
+	@Override
+	public Value putEntry(Key key, Value value, Consumer<PayloadIF<Key, Value>> initializer) {
+		return wrappedCacheManager.put(key, value, (k, v) -> {
+			final var w = wrap(k, v);
+			initializer.accept(w);
+			return w;
+		});
+	}
+
 	@Override
 	public boolean contains (Key key)
 	{
@@ -135,4 +169,11 @@ public class SoftManager<Key, Value, Wrapper extends PayloadIF<Key, Value>> impl
 		 cleanup();
 		 return wrappedCacheManager.values();
 	 }
+	 
+	 @Override
+	 public Collection<PayloadIF<Key, Value>> entries ()
+	 {
+		 cleanup();
+		 return wrappedCacheManager.entries();
+	 }
 }
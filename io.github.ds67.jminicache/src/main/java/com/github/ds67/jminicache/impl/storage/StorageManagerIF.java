@@ -4,8 +4,10 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 import com.github.ds67.jminicache.impl.guard.GuardIF;
+import com.github.ds67.jminicache.impl.payload.PayloadIF;
 
 /**
  * The storage manager cares for the storage of the cached data. This is more or less just a map to access values by the key.
@@ -24,8 +26,42 @@ public interface StorageManagerIF<Key, Value, Wrapper>
 	public Value remove (Key key);
 	public Value put (Key key, Value value, BiFunction<Key, Value, Wrapper> wrapper);
 	
+	/**
+	 * Retrieves the stored entry of a key, which provides access to the value and the meta data of the entry. 
+	 * The access is recorded like a {@link #get(Object)}.
+	 * 
+	 * @param key key to look up
+	 * @return the entry or <code>null</code> when the key does not exist
+	 */
+	public PayloadIF<Key, Value> getEntry (final Key key);
+	
+	/**
+	 * Retrieves the stored entry of a key without recording an access. 
+	 * 
+	 * @param key key to look up
+	 * @return the entry or <code>null</code> when the key does not exist
+	 */
+	public PayloadIF<Key, Value> peekEntry (final Key key);
+	
+	/**
+	 * Stores a value. The initializer is called for the new entry before it is stored, thus meta data of the entry is already
+	 * set when the entry gets visible to readers which do not lock.
+	 * 
+	 * @param key key of the value
+	 * @param value value to store
+	 * @param initializer function setting the meta data of the new entry
+	 * @return previous value of the key 
+	 */
+	public Value putEntry (Key key, Value value, Consumer<PayloadIF<Key, Value>> initializer);
+	
 	public int cachesize ();
 	
+	/**
+	 * @return sum of the weights of all stored entries
+	 * @see PayloadIF#getWeight()
+	 */
+	public long weight ();
+	
 	/**
 	 * Checks if a key is contained in the storage structure
 	 * 
@@ -43,6 +79,15 @@ public interface StorageManagerIF<Key, Value, Wrapper>
 	 */
 	public Key getForDeletion ();
 	
+	/**
+	 * Passes the number of entries the storage may hold to the eviction manager.
+	 * 
+	 * @see com.github.ds67.jminicache.impl.eviction.EvictionManagerIF#onCapacityChange(int)
+	 * 
+	 * @param capacity maximum number of entries, -1 when unknown
+	 */
+	public void setCapacity (final int capacity);
+	
 	public Wrapper wrap (final Key k, final Value v);
 	public Value unwrap (final Wrapper w);
 	
@@ -52,4 +97,9 @@ public interface StorageManagerIF<Key, Value, Wrapper>
 	public Set<Key> keySet ();
 	public Set<Map.Entry<Key, Value>> entrySet();
 	public Collection<Value> values();
+	
+	/**
+	 * @return all stored entries, providing access to the values and the meta data of the entries
+	 */
+	public Collection<PayloadIF<Key, Value>> entries();
 }
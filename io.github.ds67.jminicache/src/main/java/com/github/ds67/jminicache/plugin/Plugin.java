@@ -1,5 +1,8 @@
 package com.github.ds67.jminicache.plugin;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface Plugin<Key, Value> {
 	
 	void onBeforeFetch (Key k);
@@ -45,6 +48,21 @@ public interface Plugin<Key, Value> {
 	 */
 	void onAfterRemove (Key key, Value value);
 	
+	/**
+	 * Called after a batch of keys was removed from the cache by the cache itself (e.g. because they expired). 
+	 * The cache is still locked. The default implementation calls {@link #onBeforeRemove(Object)} and 
+	 * {@link #onAfterRemove(Object, Object)} for every key.
+	 * 
+	 * @param removed removed keys with their former values
+	 */
+	default void onRemoveAll (Map<Key, Value> removed)
+	{
+		removed.forEach((key, value) -> {
+			onBeforeRemove(key);
+			onAfterRemove(key, value);
+		});
+	}
+	
 	/**
 	 * Called whenever a key was not found in the cache
 	 * 
@@ -63,7 +81,29 @@ public interface Plugin<Key, Value> {
 	
 	void onShrink (Key key);
 	
+	/**
+	 * Called when a batch of keys was evicted because the cache exceeded its maximum size or weight. The keys are already
+	 * removed from the cache, the cache is still locked. The default implementation calls {@link #onShrink(Object)} for every key.
+	 * 
+	 * @param keys evicted keys
+	 */
+	default void onShrinkAll (Collection<Key> keys)
+	{
+		keys.forEach(this::onShrink);
+	}
+	
 	void onClear ();
 	
 	void onExpire (Key key);
+	
+	/**
+	 * Called when a batch of keys expired. The keys are removed from the cache after this call while the cache is still locked.
+	 * The default implementation calls {@link #onExpire(Object)} for every key.
+	 * 
+	 * @param keys expired keys
+	 */
+	default void onExpireAll (Collection<Key> keys)
+	{
+		keys.forEach(this::onExpire);
+	}
 }
@@ -1,6 +1,8 @@
 package com.github.ds67.jminicache.plugin;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 
 public class PluginManager<Key,Value> implements Plugin<Key,Value> {
 
@@ -54,6 +56,11 @@ public class PluginManager<Key,Value> implements Plugin<Key,Value> {
 		if (plugins!=null) plugins.forEach(p -> p.onAfterRemove(key,value));		
 	}
 
+	@Override
+	public void onRemoveAll(Map<Key, Value> removed) {
+		if (plugins!=null) plugins.forEach(p -> p.onRemoveAll(removed));		
+	}
+
 	@Override
 	public void onMiss(Key key) {
 		if (plugins!=null) plugins.forEach(p -> p.onMiss(key));		
@@ -74,6 +81,11 @@ public class PluginManager<Key,Value> implements Plugin<Key,Value> {
 		if (plugins!=null) plugins.forEach(p -> p.onShrink(key));		
 	}
 
+	@Override
+	public void onShrinkAll(Collection<Key> keys) {
+		if (plugins!=null) plugins.forEach(p -> p.onShrinkAll(keys));		
+	}
+
 	@Override
 	public void onClear() {
 		if (plugins!=null) plugins.forEach(p -> p.onClear());		
@@ -93,4 +105,9 @@ public class PluginManager<Key,Value> implements Plugin<Key,Value> {
 	public void onExpire(Key key) {
 		if (plugins!=null) plugins.forEach(p -> p.onExpire(key));		
 	}
+	
+	@Override
+	public void onExpireAll(Collection<Key> keys) {
+		if (plugins!=null) plugins.forEach(p -> p.onExpireAll(keys));		
+	}
 }
@@ -1,5 +1,7 @@
 package com.github.ds67.jminicache.plugin;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.atomic.LongAdder;
 
 import com.github.ds67.jminicache.MiniCache;
@@ -85,6 +87,11 @@ public class StatisticsPlugin<Key,Value> implements Plugin<Key,Value>, Statistic
 		removals.increment();
 	}
 
+	@Override
+	public void onRemoveAll(Map<Key, Value> removed) {
+		removals.add(removed.size());
+	}
+
 	@Override
 	public void onMiss(Key key) {
 		misses.increment();
@@ -105,6 +112,11 @@ public class StatisticsPlugin<Key,Value> implements Plugin<Key,Value>, Statistic
 		shrinks.increment();
 	}
 
+	@Override
+	public void onShrinkAll(Collection<Key> keys) {
+		shrinks.add(keys.size());
+	}
+
 	@Override
 	public void onClear() {
 		clears.increment();
@@ -173,6 +185,12 @@ public class StatisticsPlugin<Key,Value> implements Plugin<Key,Value>, Statistic
 		expired.increment();
 	}
 	
+	@Override
+	public void onExpireAll (Collection<Key> keys)
+	{
+		expired.add(keys.size());
+	}
+	
 	@Override
 	public String toString ()
 	{
@@ -0,0 +1,42 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ARCTest {
+
+	/*
+	 * Misses of recently evicted keys move the target size of the recency list
+	 */
+	@Test
+	public void ghostAdaptationTest ()
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_ARC)
+			    .setMaxSize(4)
+			    .build();
+
+		cache.set(0, 0);
+		cache.set(1, 1);
+		cache.fetch(0);
+		cache.fetch(1);
+		// 0 and 1 move to the frequency list, the recency list gets 2 and 3, then 2 is evicted for 4
+		for (int i=2;i<5;i++) cache.set(i, i);
+		assertTrue(!cache.contains(2));
+		
+		// a hit in the recency ghosts enlarges the recency list, then 3 is evicted for 2 
+		cache.set(2, 2);
+		assertTrue(!cache.contains(3));
+		// with the second ghost hit the recency list has reached its target, the frequency list is evicted
+		cache.set(3, 3);
+		assertTrue(!cache.contains(0), "Frequency list not evicted after ghost hits");
+		assertTrue(cache.contains(4), "Recency list evicted in spite of ghost hits");
+		
+		// a hit in the frequency ghosts shrinks the recency list again
+		cache.set(0, 0);
+		assertTrue(!cache.contains(4), "Recency list not evicted after a frequency ghost hit");
+		assertEquals(4, cache.size());
+	}
+}
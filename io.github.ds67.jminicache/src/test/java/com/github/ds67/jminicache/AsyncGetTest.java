@@ -0,0 +1,95 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncGetTest {
+
+	/*
+	 * Parallel asynchronous gets of a missing key share a single load, the calling thread is not blocked
+	 */
+	@Test
+	public void sharedLoadTest () throws Exception
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>().build();
+		final var calls = new AtomicInteger();
+		final var load = new CompletableFuture<ValueWithExpiry<Integer>>();
+
+		final var first = cache.getAsync(1, (executor) -> {
+			calls.incrementAndGet();
+			return load;
+		});
+		final var second = cache.getAsync(1, (executor) -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(ValueWithExpiry.of(0));
+		});
+		assertTrue(!first.isDone() && !second.isDone(), "Get did not wait for the load");
+
+		// a synchronous get waits for the same load
+		final var sync = CompletableFuture.supplyAsync(() -> cache.get(1, () -> ValueWithExpiry.of(0)));
+
+		load.complete(ValueWithExpiry.of(42));
+		assertEquals(42, first.get(5, TimeUnit.SECONDS));
+		assertEquals(42, second.get(5, TimeUnit.SECONDS));
+		assertEquals(42, sync.get(5, TimeUnit.SECONDS));
+		assertEquals(1, calls.get(), "Supplier called more than once");
+
+		// hits return completed futures
+		assertTrue(cache.getAsync(1, (executor) -> load).isDone());
+	}
+
+	@Test
+	public void failedLoadTest () throws Exception
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>().build();
+
+		final var result = cache.getAsync(1, AsyncValueSupplier.of(() -> { throw new IOException("load failed"); }));
+		final var e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof IOException, "Unexpected exception "+e.getCause());
+		assertTrue(!cache.contains(1), "Failed load left a value");
+
+		assertEquals(4, cache.getAsync(1, AsyncValueSupplier.of(() -> ValueWithExpiry.of(4))).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void missingFutureTest () throws Exception
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>().build();
+
+		final var result = cache.getAsync(1, (executor) -> null);
+		final var e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof NullPointerException, "Unexpected exception "+e.getCause());
+
+		// the key is not registered as loading anymore
+		assertEquals(4, CompletableFuture.supplyAsync(() -> cache.get(1, () -> ValueWithExpiry.of(4))).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void valueFactoryTest () throws Exception
+	{
+		final var loader = new AtomicInteger();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setLoaderExecutor((r) -> {
+					loader.incrementAndGet();
+					new Thread(r).start();
+				})
+				.setValueFactory((k) -> k*k)
+				.build();
+
+		assertEquals(9, cache.getAsync(3).get(5, TimeUnit.SECONDS));
+		assertEquals(1, loader.get(), "Value factory was not called on the loader executor");
+
+		cache.setAsyncValueFactory((k) -> CompletableFuture.completedFuture(ValueWithExpiry.of(-k)));
+		assertEquals(-4, cache.getAsync(4).get(5, TimeUnit.SECONDS));
+		assertEquals(9, cache.getAsync(3).get(5, TimeUnit.SECONDS));
+	}
+}
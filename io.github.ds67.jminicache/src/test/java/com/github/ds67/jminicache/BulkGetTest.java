@@ -0,0 +1,136 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class BulkGetTest {
+
+	static Map<Integer, ValueWithExpiry<Integer>> squares (Set<Integer> keys)
+	{
+		final var result = new HashMap<Integer, ValueWithExpiry<Integer>>();
+		for (var k: keys) result.put(k, ValueWithExpiry.of(k*k));
+		return result;
+	}
+
+	@Test
+	public void loadMissingKeysTest ()
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setConcurrencyLevel(4)
+				.build();
+		cache.set(1, 1);
+		cache.set(2, 2);
+
+		final var requested = new ArrayList<Set<Integer>>();
+		final var result = cache.getAll(List.of(1, 2, 3, 4, 5), (keys) -> {
+			requested.add(Set.copyOf(keys));
+			final var values = squares(keys);
+			values.remove(5);
+			return values;
+		});
+
+		assertEquals(1, requested.size(), "Supplier must be called once");
+		assertEquals(Set.of(3, 4, 5), requested.get(0));
+		assertEquals(5, result.size());
+		assertEquals(2, result.get(2));
+		assertEquals(16, result.get(4));
+		assertEquals(null, result.get(5));
+		assertEquals(9, cache.fetch(3));
+		assertTrue(!cache.contains(5), "Key without value was cached");
+
+		// no supplier call when everything is cached
+		cache.getAll(List.of(1, 2, 3, 4), (keys) -> { throw new IllegalStateException("unexpected load"); });
+	}
+
+	@Test
+	public void failedLoadTest ()
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>().build();
+
+		assertThrows(IOException.class, () -> cache.getAll(List.of(1, 2), (keys) -> { throw new IOException("load failed"); }));
+		assertEquals(0, cache.size());
+		assertEquals(4, cache.getAll(List.of(1, 2), BulkGetTest::squares).get(2));
+	}
+
+	/*
+	 * Keys which are loaded by another thread are not passed to the bulk supplier
+	 */
+	@Test
+	public void singleLoadPerKeyTest () throws Exception
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>().build();
+		final var release = new CountDownLatch(1);
+		final var started = new CountDownLatch(1);
+
+		final var single = CompletableFuture.supplyAsync(() -> cache.get(1, () -> {
+			started.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return ValueWithExpiry.of(-1);
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		final var requested = new ArrayList<Set<Integer>>();
+		final var bulk = CompletableFuture.supplyAsync(() -> cache.getAll(List.of(1, 2), (keys) -> {
+			requested.add(Set.copyOf(keys));
+			return squares(keys);
+		}));
+		Thread.sleep(200);
+		release.countDown();
+
+		assertEquals(-1, single.get(5, TimeUnit.SECONDS));
+		assertEquals(Map.of(1, -1, 2, 4), bulk.get(5, TimeUnit.SECONDS));
+		assertEquals(List.of(Set.of(2)), requested);
+	}
+
+	/*
+	 * Hits are looked up without a write lock, thus a getAll of cached keys does not wait for readers
+	 */
+	@Test
+	public void hitsWithoutWriteLockTest () throws Exception
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.build();
+		cache.set(1, 1);
+		cache.set(2, 2);
+
+		final var locked = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var reader = new Thread(() -> cache.readLocked(() -> {
+			locked.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		reader.start();
+		locked.await();
+		try {
+			final var result = CompletableFuture.supplyAsync(() -> cache.getAll(List.of(1, 2), (keys) -> { throw new IllegalStateException("unexpected load"); }))
+					.get(1, TimeUnit.SECONDS);
+			assertEquals(Map.of(1, 1, 2, 2), result);
+		}
+		finally {
+			release.countDown();
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class CacheWriterTest {
+
+	// Writer which records the calls and maintains a store
+	static class RecordingWriter implements CacheWriter<Integer, Integer>
+	{
+		final Map<Integer, Integer> store = new ConcurrentHashMap<>();
+		final List<String> calls = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void write(Integer key, Integer value) {
+			calls.add("write "+key);
+			store.put(key, value);
+		}
+
+		@Override
+		public void delete(Integer key) {
+			calls.add("delete "+key);
+			store.remove(key);
+		}
+
+		@Override
+		public void writeAll(Map<Integer, Integer> entries) {
+			calls.add("writeAll "+entries.size());
+			store.putAll(entries);
+		}
+
+		@Override
+		public void deleteAll(Collection<Integer> keys) {
+			calls.add("deleteAll "+keys.size());
+			store.keySet().removeAll(keys);
+		}
+	}
+
+	@Test
+	public void writeThroughTest ()
+	{
+		final var writer = new RecordingWriter();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setCacheWriter(writer, MiniCacheBuilder.WriteMode.WRITE_THROUGH)
+				.build();
+
+		cache.set(1, 1);
+		cache.set(2, 2);
+		cache.remove(1);
+		// loaded values are not written
+		cache.get(3, () -> ValueWithExpiry.of(3));
+
+		assertEquals(List.of("write 1", "write 2", "delete 1"), writer.calls);
+		assertEquals(Map.of(2, 2), writer.store);
+	}
+
+	@Test
+	public void failingWriteThroughTest ()
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setCacheWriter(new CacheWriter<Integer, Integer>() {
+					@Override
+					public void write(Integer key, Integer value) {
+						throw new IllegalStateException("store not available");
+					}
+
+					@Override
+					public void delete(Integer key) {
+					}
+				}, MiniCacheBuilder.WriteMode.WRITE_THROUGH)
+				.build();
+
+		assertThrows(IllegalStateException.class, () -> cache.set(1, 1));
+		assertTrue(!cache.contains(1), "Value was cached although the writer failed");
+	}
+
+	@Test
+	public void writeBehindTest () throws InterruptedException
+	{
+		final var writer = new RecordingWriter();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setCacheWriter(writer, MiniCacheBuilder.WriteMode.WRITE_BEHIND)
+				.setWriteBehindBatching(1000, 200, TimeUnit.MILLISECONDS)
+				.build();
+
+		for (int i=0;i<10;i++) {
+			cache.set(1, i);
+			cache.set(2, i);
+		}
+		cache.set(3, 3);
+		cache.remove(3);
+		cache.remove(4);
+		assertTrue(writer.calls.isEmpty(), "Changes were not queued");
+
+		Thread.sleep(500);
+		// repeated changes are coalesced into a single batch
+		assertEquals(List.of("writeAll 2", "deleteAll 2"), writer.calls);
+		assertEquals(Map.of(1, 9, 2, 9), writer.store);
+	}
+
+	@Test
+	public void writeBehindBatchSizeTest () throws InterruptedException
+	{
+		final var writer = new RecordingWriter();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setCacheWriter(writer, MiniCacheBuilder.WriteMode.WRITE_BEHIND)
+				.setWriteBehindBatching(10, 1, TimeUnit.HOURS)
+				.build();
+
+		for (int i=0;i<10;i++) cache.set(i, i);
+		Thread.sleep(300);
+		assertEquals(List.of("writeAll 10"), writer.calls);
+	}
+
+	@Test
+	public void closeTest ()
+	{
+		final var writer = new RecordingWriter();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setCacheWriter(writer, MiniCacheBuilder.WriteMode.WRITE_BEHIND)
+				.setWriteBehindBatching(1000, 1, TimeUnit.HOURS)
+				.build();
+
+		cache.set(1, 1);
+		cache.flush();
+		assertEquals(List.of("writeAll 1"), writer.calls);
+		
+		cache.set(2, 2);
+		cache.remove(1);
+		cache.close();
+		assertEquals(List.of("writeAll 1", "writeAll 1", "deleteAll 1"), writer.calls);
+		assertEquals(Map.of(2, 2), writer.store);
+		
+		// changes after closing are written synchronously
+		cache.set(3, 3);
+		assertEquals(Map.of(2, 2, 3, 3), writer.store);
+	}
+
+	@Test
+	public void writeBehindFailureTest ()
+	{
+		final var attempts = new AtomicInteger();
+		final var dropped = new CopyOnWriteArrayList<Integer>();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setCacheWriter(new CacheWriter<Integer, Integer>() {
+					@Override
+					public void write(Integer key, Integer value) {
+						attempts.incrementAndGet();
+						throw new IllegalStateException("store not available");
+					}
+
+					@Override
+					public void delete(Integer key) {
+					}
+					
+					@Override
+					public void onWriteFailure(Collection<Integer> keys, RuntimeException cause) {
+						dropped.addAll(keys);
+					}
+				}, MiniCacheBuilder.WriteMode.WRITE_BEHIND)
+				.setWriteBehindBatching(1000, 1, TimeUnit.HOURS)
+				.build();
+
+		cache.set(1, 1);
+		cache.close();
+		// the change is retried a few times, then dropped and reported
+		assertTrue(attempts.get()>1, "Failed change was not retried");
+		assertEquals(List.of(1), dropped);
+		assertTrue(cache.contains(1), "Cache must keep the value");
+	}
+
+	/*
+	 * A full queue is written by the thread changing the cache, so the changes wait for a slow writer. The cache is not
+	 * locked meanwhile and only one flush waits on the executor.
+	 */
+	@Test
+	public void writeBehindBackPressureTest () throws Exception
+	{
+		final var submitted = new AtomicInteger();
+		final var release = new CountDownLatch(1);
+		final var writer = new RecordingWriter() {
+			@Override
+			public void writeAll(Map<Integer, Integer> entries) {
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.writeAll(entries);
+			}
+		};
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setCacheWriter(writer, MiniCacheBuilder.WriteMode.WRITE_BEHIND)
+				.setWriteBehindBatching(2, 1, TimeUnit.HOURS)
+				.setLoaderExecutor((r) -> {
+					submitted.incrementAndGet();
+					new Thread(r).start();
+				})
+				.build();
+
+		final var changer = new Thread(() -> {
+			for (int i=0;i<100;i++) cache.set(i, i);
+		});
+		changer.start();
+		changer.join(300);
+		assertTrue(changer.isAlive(), "Changes were queued without limit");
+		assertEquals(0, CompletableFuture.supplyAsync(() -> cache.fetch(0)).get(1, TimeUnit.SECONDS), "Cache is locked while waiting for the writer");
+		assertTrue(submitted.get()<=2, "Flushes were submitted while a flush was waiting");
+		
+		release.countDown();
+		changer.join(5000);
+		cache.close();
+		assertEquals(100, writer.store.size());
+	}
+}
@@ -0,0 +1,30 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/*
+ * Behavior every eviction policy must provide, the policy specific behavior is tested in the test of the policy
+ */
+public class EvictionPolicyTest {
+
+	@ParameterizedTest
+	@EnumSource(value=MiniCacheBuilder.EvictionPolicy.class, mode=EnumSource.Mode.EXCLUDE, names="EVICTION_NONE")
+	public void maxSizeTest (final MiniCacheBuilder.EvictionPolicy policy)
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(policy)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<10*maxSize;i++) {
+			int v = i%(3*maxSize);
+			assertEquals(LRUTest.sqr(v), cache.get(v), "Unexpected cached value for the key");
+			assertEquals(Math.min(maxSize, i+1), cache.size(), "Unexpected cache size");
+		}
+	}
+}
@@ -1,6 +1,18 @@
 package com.github.ds67.jminicache;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -84,4 +96,247 @@ public class ExpiryTest {
 		assertEquals(3,cache.size());
 		assertEquals (3,cache.getStatistics().getRefreshCounter());
 	}
+
+	/*
+	 * Refresh methods are executed on the loader executor, the scheduler thread just triggers them
+	 */
+	@Test
+	public void refreshOnLoaderThreadTest () throws InterruptedException
+	{
+		final var refreshThreads = new ConcurrentLinkedQueue<String>();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)
+				.setUseExpiry(true)
+				.setUseVirtualThreads(true)
+			    .setRefreshMethod((key) -> {
+			    	refreshThreads.add(Thread.currentThread().getName());
+			    	return ValueWithExpiry.of(key*2);
+			    })
+			    .build();
+	
+		cache.set(42,42,System.currentTimeMillis()+100);
+		cache.set(43,43,System.currentTimeMillis()+100);
+		Thread.sleep(400);
+		
+		assertEquals(42*2, cache.fetch(42));
+		assertEquals(43*2, cache.fetch(43));
+		assertEquals(2, refreshThreads.size());
+		assertTrue(!refreshThreads.contains("Minicache expiry scheduler"), "Refresh executed on the scheduler thread");
+	}
+
+	/*
+	 * Reads after the refresh time return the current value and trigger a single reload in the background
+	 */
+	@Test
+	public void refreshAheadTest () throws InterruptedException
+	{
+		final var reloads = new AtomicInteger();
+		final var release = new CountDownLatch(1);
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+				.setCalculateStatistics(true)
+			    .setRefreshMethod((key) -> {
+			    	try {
+			    		release.await();
+			    	}
+			    	catch (InterruptedException e) {
+			    		Thread.currentThread().interrupt();
+			    	}
+			    	return ValueWithExpiry.of(key*reloads.incrementAndGet()*2);
+			    })
+			    .build();
+	
+		cache.set(42, ValueWithExpiry.of(42).withRefreshAfter(System.currentTimeMillis()+100));
+		Thread.sleep(200);
+		
+		// reads keep returning the current value while the reload is running
+		for (int i=0;i<100;i++) assertEquals(42, cache.fetch(42));
+		release.countDown();
+		Thread.sleep(200);
+		
+		assertEquals(42*2, cache.fetch(42));
+		assertEquals(1, reloads.get(), "Reload was not deduplicated");
+		assertEquals(1, cache.getStatistics().getRefreshCounter());
+	}
+
+	/*
+	 * Expired entries are misses, even before they are removed in the background
+	 */
+	@Test
+	public void expiredEntriesAreMissesTest ()
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)
+				.setUseExpiry(true)
+			    .build();
+	
+		final long expireDate = System.currentTimeMillis()+10000;
+		cache.set(1, 1, expireDate);
+		cache.set(2, 2, System.currentTimeMillis()-1);
+		
+		assertEquals(1, cache.fetch(1));
+		assertEquals(null, cache.fetch(2));
+		assertTrue(!cache.contains(2), "Expired entry is still contained");
+		assertEquals(Set.of(1), cache.keySet(), "Expired key is still in the key set");
+		assertEquals(List.of(1), new ArrayList<>(cache.values()), "Expired value is still in the values");
+		assertEquals(Set.of(Map.entry(1, 1)), cache.entrySet(), "Expired entry is still in the entry set");
+		assertEquals(4, cache.get(2, () -> ValueWithExpiry.of(4)));
+		assertEquals(expireDate, cache.entrySetWithExpiryDate().stream().filter((e) -> e.getKey()==1).findFirst().get().getValue().getExpiry());
+	}
+
+	@Test
+	public void defaultExpiryTimeTest () throws InterruptedException
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setDefaultExpiryTime(200)
+			    .build();
+	
+		final long expireDate = System.currentTimeMillis()+10000;
+		cache.set(1, 1);
+		cache.set(2, 2, expireDate);
+		assertTrue(cache.contains(1), "Entry expired too early");
+		
+		Thread.sleep(500);
+		assertTrue(!cache.contains(1), "Entry did not expire after default expiry time");
+		// explicit expiry dates take precedence
+		assertEquals(2, cache.fetch(2));
+	}
+	
+	@Test
+	public void noDefaultExpiryTimeTest () throws InterruptedException
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setDefaultExpiryTime(0)
+			    .build();
+	
+		cache.set(1, 1);
+		cache.set(2, 2, System.currentTimeMillis()+100);
+		Thread.sleep(300);
+		assertTrue(cache.contains(1), "Entry without expiry date expired");
+		assertTrue(!cache.contains(2), "Explicit expiry date was ignored");
+	}
+	
+	@Test
+	public void slidingExpiryTest () throws InterruptedException
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setExpiry(Expiry.afterAccess(200, TimeUnit.MILLISECONDS))
+			    .build();
+	
+		cache.set(1, 1);
+		cache.set(2, 2);
+		// reads keep entry 1 alive far beyond its initial lifetime
+		for (int i=0;i<8;i++) {
+			Thread.sleep(100);
+			assertEquals(1, cache.fetch(1));
+		}
+		assertTrue(!cache.contains(2), "Idle entry did not expire");
+		
+		Thread.sleep(500);
+		assertTrue(!cache.contains(1), "Entry did not expire after reads stopped");
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void bulkExpiryTest () throws InterruptedException
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setUseExpiry(true)
+				.setConcurrencyLevel(4)
+				.setCalculateStatistics(true)
+			    .build();
+	
+		final var content = new HashMap<Integer, Integer>();
+		for (int i=0;i<20000;i++) content.put(i, i);
+		cache.set(content, System.currentTimeMillis()+200);
+		cache.set(-1, -1);
+		assertEquals(20001, cache.size());
+		
+		Thread.sleep(600);
+		assertEquals(1, cache.size());
+		assertEquals(20000, cache.getStatistics().getExpiredCounter());
+	}
+
+	/*
+	 * A failing expiry does not stop the expiry of later keys
+	 */
+	@Test
+	public void failingExpiryTest () throws InterruptedException
+	{
+		final var executions = new AtomicInteger();
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setUseExpiry(true)
+				.setRefreshMethod((k) -> ValueWithExpiry.of(-k))
+				.setLoaderExecutor((r) -> {
+					if (executions.getAndIncrement()==0) throw new RejectedExecutionException("loader not ready");
+					new Thread(r).start();
+				})
+			    .build();
+
+		// a pending key keeps the periodic task of the expiry manager running
+		cache.set(0, 0, System.currentTimeMillis()+60_000);
+		cache.set(1, 1, System.currentTimeMillis()+50);
+		Thread.sleep(300);
+		assertEquals(1, executions.get(), "Expiry not triggered");
+		
+		cache.set(2, 2, System.currentTimeMillis()+50);
+		Thread.sleep(300);
+		assertEquals(-2, cache.fetch(2), "Key not refreshed after a failed expiry");
+	}
+
+	/*
+	 * An entry whose refresh fails is expired instead of staying in the cache forever
+	 */
+	@Test
+	public void failingRefreshTest () throws InterruptedException
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setUseExpiry(true)
+				.setCalculateStatistics(true)
+				.setRefreshMethod((k) -> {
+					if (k==1) throw new IllegalStateException("backing store not available");
+					return k==2?null:ValueWithExpiry.of(-k);
+				})
+			    .build();
+
+		cache.set(1, 1, System.currentTimeMillis()+50);
+		cache.set(2, 2, System.currentTimeMillis()+50);
+		cache.set(3, 3, System.currentTimeMillis()+50);
+		Thread.sleep(400);
+		
+		assertEquals(Set.of(3), cache.keySet());
+		assertEquals(1, cache.size(), "Entries with a failed refresh are still stored");
+		assertEquals(-3, cache.fetch(3));
+		assertEquals(3, cache.getStatistics().getExpiredCounter());
+	}
+
+	/*
+	 * A key which is removed after the expiry manager collected it but before it is expired is not counted as expired
+	 */
+	@Test
+	public void removedBeforeExpiryTest () throws InterruptedException
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setUseExpiry(true)
+				.setCalculateStatistics(true)
+			    .build();
+
+		cache.set(1, 1, System.currentTimeMillis()+50);
+		cache.set(2, 2, System.currentTimeMillis()+50);
+		// the expiry manager collects both keys while the cache is locked
+		cache.writeLocked(() -> {
+			try {
+				Thread.sleep(300);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			cache.remove(1);
+		});
+		Thread.sleep(200);
+		
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getStatistics().getExpiredCounter(), "Removed key was counted as expired");
+		assertEquals(2, cache.getStatistics().getRemovalCounter());
+	}
 }
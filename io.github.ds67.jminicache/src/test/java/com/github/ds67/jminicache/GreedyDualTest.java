@@ -0,0 +1,66 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class GreedyDualTest {
+
+	private static Integer slowSqr (Integer i)
+	{
+		try {
+			Thread.sleep(20);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return LRUTest.sqr(i);
+	}
+	
+	@Test
+	public void removeTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_GDSF)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<3*maxSize;i++) cache.get(i);
+		assertEquals(maxSize, cache.size());
+		
+		for (int i=0;i<3*maxSize;i++) cache.remove(i);
+		assertEquals(0, cache.size());
+		for (int i=0;i<3*maxSize;i++) cache.set(i, i);
+		assertEquals(maxSize, cache.size());
+		assertTrue(cache.contains(3*maxSize-1), "The last written key must not be evicted");
+	}
+
+	/*
+	 * Cheap keys which are loaded once must not evict the expensive keys
+	 */
+	@Test
+	public void expensiveKeysTest ()
+	{
+		final int maxSize = 10;
+		final int expensiveKeys = 5;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_GDSF)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		for (int i=0;i<expensiveKeys;i++) {
+			final int key = i;
+			assertEquals(LRUTest.sqr(i), cache.get(i, () -> slowSqr(key), 0));
+		}
+		for (int i=100;i<200;i++) {
+			final int key = i;
+			assertEquals(LRUTest.sqr(i), cache.get(i, () -> LRUTest.sqr(key), 0));
+		}
+		
+		assertEquals(maxSize, cache.size());
+		for (int i=0;i<expensiveKeys;i++) assertTrue(cache.contains(i), "Expensive key "+i+" was evicted");
+	}
+}
@@ -0,0 +1,112 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.ds67.jminicache.impl.MiniCacheImpl;
+
+public class HeapPressureTest {
+
+	@Test
+	public void shrinkAndGrowTest ()
+	{
+		final int maxSize = 1000;
+		final var cache = (MiniCacheImpl<Integer, Integer>)new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+			    .setMaxSize(maxSize)
+			    .setAdaptToHeapPressure(true)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.get(i);
+		assertEquals(maxSize, cache.size());
+		
+		cache.onHeapPressure(0.95);
+		assertEquals(750, cache.size(), "Cache must shrink under heap pressure");
+		assertEquals(maxSize, cache.getMaxSize(), "Configured maximum size must not change");
+		// the most recently used keys survive
+		for (int i=250;i<maxSize;i++) assertTrue(cache.contains(i), "Recently used key "+i+" was evicted");
+		
+		for (int n=0;n<10;n++) cache.onHeapPressure(0.5);
+		for (int i=0;i<2*maxSize;i++) cache.get(i);
+		assertEquals(maxSize, cache.size(), "Capacity must grow back when the pressure is gone");
+		
+		cache.setAdaptToHeapPressure(false);
+	}
+	
+	@Test
+	public void rateLimitTest ()
+	{
+		final var cache = (MiniCacheImpl<Integer, Integer>)new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+			    .setMaxSize(1000)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<1000;i++) cache.get(i);
+		final long start = 0;
+		cache.onHeapPressure(0.95, start);
+		assertEquals(750, cache.size());
+		
+		// the same usage is reported again by every young collection
+		cache.onHeapPressure(0.95, start+5_000_000_000l);
+		assertEquals(750, cache.size(), "Cache shrunk without rising heap usage");
+		// a burst of notifications shrinks only once
+		cache.onHeapPressure(0.97, start+1_000_000);
+		assertEquals(750, cache.size(), "Cache shrunk twice within the interval");
+		cache.onHeapPressure(0.97, start+5_000_000_000l);
+		assertEquals(562, cache.size(), "Cache must shrink when the usage keeps rising");
+		
+		// after growing again a rising usage shrinks the cache at once
+		cache.onHeapPressure(0.5, start+5_100_000_000l);
+		cache.onHeapPressure(0.9, start+6_100_000_000l);
+		assertEquals(464, cache.size());
+	}
+	
+	/*
+	 * Notifications of the garbage collectors reach the cache, after a collection of an almost empty heap the capacity grows back
+	 */
+	@Test
+	public void notificationTest () throws InterruptedException
+	{
+		final int maxSize = 1000;
+		final var cache = (MiniCacheImpl<Integer, Integer>)new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+			    .setMaxSize(maxSize)
+			    .setAdaptToHeapPressure(true)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		cache.onHeapPressure(0.95);
+		for (int i=0;i<maxSize;i++) cache.get(i);
+		assertEquals(750, cache.size());
+		
+		for (int n=0;n<100 && cache.size()<maxSize;n++) {
+			System.gc();
+			Thread.sleep(50);
+			for (int i=0;i<maxSize;i++) cache.get(i);
+		}
+		assertEquals(maxSize, cache.size(), "Capacity did not grow after garbage collections");
+		
+		cache.setAdaptToHeapPressure(false);
+	}
+	
+	@Test
+	public void unboundedCacheTest ()
+	{
+		final var cache = (MiniCacheImpl<Integer, Integer>)new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<100;i++) cache.get(i);
+		cache.onHeapPressure(0.95);
+		assertEquals(75, cache.size(), "Unbounded cache must shrink relative to its size");
+		
+		cache.setAdaptToHeapPressure(false);
+		for (int i=0;i<200;i++) cache.get(i);
+		assertEquals(200, cache.size(), "Cache must be unbounded again");
+	}
+}
@@ -1,6 +1,8 @@
 package com.github.ds67.jminicache;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
@@ -12,6 +14,18 @@ public class InterfaceUseTest {
 		var cache = new MiniCacheBuilder<Integer, Integer>().build();
 	}
 
-	
+	@Test
+	public void concurrentStorageWithNullValues() 
+	{
+		var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setStoragePolicy(MiniCacheBuilder.StoragePolicy.CONCURRENT_HASH_STORAGE)
+				.build();
+		
+		assertEquals(null, cache.get(1, () -> ValueWithExpiry.of(null)));
+		assertTrue(cache.contains(1), "null value was not cached");
+		cache.set(2, 4);
+		assertEquals(4, cache.fetch(2));
+		assertEquals(2, cache.size());
+	}
 	
 }
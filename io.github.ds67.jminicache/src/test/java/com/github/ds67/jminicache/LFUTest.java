@@ -0,0 +1,66 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LFUTest {
+
+	@Test
+	public void basicLFUTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LFU)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.set(i,i);
+		// every key except 3 is read once
+		for (int i=0;i<maxSize;i++) if (i!=3) cache.fetch(i);
+		cache.set(10,10);
+
+		assertEquals(maxSize, cache.size());
+		assertTrue(!cache.contains(3), "The least frequently used key should have been removed");
+		assertTrue(cache.contains(10), "The new key must not be removed");
+		
+		// the new key is now the least frequently used one
+		cache.set(11,11);
+		assertTrue(!cache.contains(10), "The least frequently used key should have been removed");
+	}
+
+	/*
+	 * Frequently used keys are kept when many other keys are loaded, as long as they are still used
+	 */
+	@Test
+	public void hotSetTest ()
+	{
+		final int maxSize = 100;
+		final int hotKeys = 50;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LFU)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int n=0;n<10;n++) {
+			for (int i=0;i<hotKeys;i++) cache.get(i);
+		}
+		for (int i=1000;i<5000;i++) {
+			cache.get(i);
+			if (i%100==0) {
+				for (int k=0;k<hotKeys;k++) cache.get(k);
+			}
+		}
+
+		assertEquals(maxSize, cache.size());
+		for (int i=0;i<hotKeys;i++) assertTrue(cache.contains(i), "Frequently read key "+i+" was removed");
+		
+		// Aging lets the former hot keys leave the cache when other keys are used more often
+		for (int n=0;n<50;n++) {
+			for (int i=2000;i<2000+maxSize;i++) cache.get(i);
+		}
+		for (int i=0;i<hotKeys;i++) assertTrue(!cache.contains(i), "Formerly hot key "+i+" is still cached");
+	}
+}
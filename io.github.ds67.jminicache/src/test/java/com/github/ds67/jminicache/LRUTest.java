@@ -54,5 +54,28 @@ public class LRUTest {
 		
 		assertIterableEquals(cache.keySet(),Arrays.asList(0,2,3,4,5,6,7,8,9,10),"The 1 key should have been removed");
 	}
-	
+
+	/*
+	 * Reads are recorded in buffers and replayed in batches, the recency order must be the same as without buffering
+	 */
+	@Test
+	public void bufferedReadsLRUTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.set(i,i);
+		// Read the first half more often than a buffer can hold
+		for (int n=0;n<100;n++) {
+			for (int i=0;i<maxSize/2;i++) cache.fetch(i);
+		}
+		for (int i=maxSize;i<maxSize+maxSize/2;i++) cache.set(i,i);
+
+		for (int i=0;i<maxSize/2;i++) assertTrue(cache.contains(i), "Recently read key "+i+" was removed");
+		for (int i=maxSize/2;i<maxSize;i++) assertTrue(!cache.contains(i), "Not read key "+i+" was not removed");
+	}
+
 }
@@ -0,0 +1,62 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.ds67.jminicache.impl.eviction.S3FIFOManager;
+import com.github.ds67.jminicache.impl.payload.KeyValuePayload;
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+
+public class S3FIFOTest {
+
+	/*
+	 * A key which was evicted from the small queue a short time ago goes directly to the main queue when it is set again
+	 */
+	@Test
+	public void ghostReadmissionTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_S3FIFO)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		for (int i=0;i<maxSize+2;i++) cache.set(i, i);
+		// keys never read leave the small queue first
+		assertTrue(!cache.contains(0) && !cache.contains(1));
+		
+		cache.set(0, 0);
+		for (int i=100;i<100+3*maxSize;i++) cache.set(i, i);
+		assertTrue(cache.contains(0), "Key found in the ghost queue was not admitted to the main queue");
+		assertTrue(!cache.contains(2), "Key of the small queue survived");
+		assertEquals(maxSize, cache.size());
+	}
+
+	/*
+	 * Entries which are read again by concurrent readers do not keep the eviction moving forever
+	 */
+	@Test
+	public void alwaysReadTest ()
+	{
+		final var manager = new S3FIFOManager<Integer, Integer, ListWrapper<Integer, Integer, KeyValuePayload<Integer, Integer>>>(
+				(k, v) -> new ListWrapper<>(new KeyValuePayload<>(k, v)) {
+					// a reader counts a hit again right after the eviction has decremented the counter
+					@Override
+					public int getHits() {
+						return 1;
+					}
+				},
+				ListWrapper::getPayload);
+		final var cache = new HashMap<Integer, ListWrapper<Integer, Integer, KeyValuePayload<Integer, Integer>>>();
+		for (int i=0;i<10;i++) manager.onWrite(cache, manager.createWrapper(i, i), null);
+
+		assertNotNull(assertTimeoutPreemptively(Duration.ofSeconds(5), () -> manager.getForDeletion()), "No entry was evicted");
+	}
+}
@@ -0,0 +1,82 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SLRUTest {
+
+	/*
+	 * Keys which are read once by a scan must not flush the frequently read keys
+	 */
+	@Test
+	public void scanResistanceTest ()
+	{
+		final int maxSize = 100;
+		final int hotKeys = 50;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SLRU)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int n=0;n<10;n++) {
+			for (int i=0;i<hotKeys;i++) cache.get(i);
+		}
+		for (int i=1000;i<3000;i++) {
+			cache.get(i);
+			// keep the hot keys in use while scanning
+			if (i%100==0) {
+				for (int k=0;k<hotKeys;k++) cache.get(k);
+			}
+		}
+
+		assertEquals(maxSize, cache.size());
+		for (int i=0;i<hotKeys;i++) assertTrue(cache.contains(i), "Frequently read key "+i+" was removed by the scan");
+	}
+
+	@Test
+	public void promotionTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SLRU)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.set(i,i);
+		cache.fetch(0);
+		cache.fetch(1);
+		// a scan of as many new keys as the cache holds would flush LRU completely
+		for (int i=maxSize;i<2*maxSize;i++) cache.set(i,i);
+		
+		assertEquals(maxSize, cache.size());
+		assertTrue(cache.contains(0), "Promoted key 0 was evicted");
+		assertTrue(cache.contains(1), "Promoted key 1 was evicted");
+		assertTrue(!cache.contains(2), "Key 2 in probation should have been evicted");
+	}
+
+	/*
+	 * Evicting a batch of entries must not demote protected entries, the protected list keeps its share of the maximum size 
+	 */
+	@Test
+	public void batchEvictionTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SLRU)
+			    .setMaxSize(maxSize)
+			    .setLowWatermark(0.7)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.set(i,i);
+		for (int i=0;i<8;i++) cache.fetch(i);
+		// evicts the probation list and the least recently used protected key
+		cache.set(maxSize, maxSize);
+		assertEquals(7, cache.size());
+		
+		for (int i=11;i<15;i++) cache.set(i,i);
+		for (int i=1;i<8;i++) assertTrue(cache.contains(i), "Protected key "+i+" was evicted");
+	}
+}
@@ -0,0 +1,73 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SampledLRUTest {
+
+	@Test
+	public void removeTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SAMPLED_LRU)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<3*maxSize;i++) cache.get(i);
+		assertEquals(maxSize, cache.size());
+		
+		// removed keys must leave the sample array as well
+		for (int i=0;i<3*maxSize;i++) cache.remove(i);
+		assertEquals(0, cache.size());
+		for (int i=0;i<2*maxSize;i++) cache.get(i);
+		assertEquals(maxSize, cache.size());
+	}
+
+	/*
+	 * A recently read key is only evicted when all sampled keys were read recently, which is very unlikely for a few
+	 * hot keys in a large cache
+	 */
+	@Test
+	public void recentlyUsedTest ()
+	{
+		final int maxSize = 1000;
+		final int hotKeys = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SAMPLED_LRU)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.get(i);
+		for (int i=maxSize;i<2*maxSize;i++) {
+			if (i%100==0) {
+				for (int k=0;k<hotKeys;k++) cache.get(k);
+			}
+			cache.get(i);
+		}
+		
+		assertEquals(maxSize, cache.size());
+		for (int i=0;i<hotKeys;i++) assertTrue(cache.contains(i), "Recently read key "+i+" was evicted");
+	}
+	
+	@Test
+	public void softValuesTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SAMPLED_LRU)
+				.setUseSoftKeys(true)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=0;i<5*maxSize;i++) {
+			assertEquals(LRUTest.sqr(i), cache.get(i));
+			assertTrue(cache.size()<=maxSize, "Unexpected cache size");
+		}
+	}
+}
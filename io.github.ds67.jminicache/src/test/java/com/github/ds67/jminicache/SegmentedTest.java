@@ -0,0 +1,104 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+public class SegmentedTest {
+
+	// Just some function for cache value creation. Might be everything
+	static int sqr (int n)
+	{
+		return n*n;
+	}
+
+	@Test
+	public void segmentedSizeTest()
+	{
+		final int maxSize = 100;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)
+				.setConcurrencyLevel(8)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(SegmentedTest::sqr)
+			    .build();
+
+		for (int i=0;i<10*maxSize;i++) {
+			assertEquals(sqr(i), cache.get(i), "Unexpected cached value for the key");
+			assertTrue(cache.size()<=maxSize, "Maximum size exceeded");
+		}
+		// Every segment is filled up to its share
+		assertEquals(maxSize, cache.size(), "Unexpected cache size");
+
+		cache.setMaxSize(maxSize/2);
+		assertEquals(maxSize/2, cache.size(), "Unexpected cache size after shrinking");
+	}
+
+	@Test
+	public void alignedKeysTest()
+	{
+		final int maxSize = 100;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)
+				.setConcurrencyLevel(4)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		// keys which are all multiples of the segment count must still use all segments
+		for (int i=0;i<10*maxSize;i++) cache.set(4*i, sqr(i));
+		assertEquals(maxSize, cache.size(), "Unexpected cache size");
+	}
+
+	@Test
+	public void maxSizeBelowConcurrencyLevelTest()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+				.setConcurrencyLevel(16)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		for (int i=0;i<100;i++) {
+			cache.set(i, sqr(i));
+			assertEquals(sqr(i), cache.fetch(i), "Written value evicted immediately");
+			assertTrue(cache.size()<=maxSize, "Maximum size exceeded");
+		}
+
+		// a maximum size below the number of segments leaves every segment one entry
+		cache.setMaxSize(2);
+		for (int i=0;i<100;i++) {
+			cache.set(i, sqr(i));
+			assertEquals(sqr(i), cache.fetch(i), "Written value evicted immediately");
+			assertTrue(cache.size()<=maxSize, "Segment limit exceeded");
+		}
+	}
+
+	@Test
+	public void segmentedContentTest()
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setConcurrencyLevel(4)
+			    .build();
+
+		final var content = new HashMap<Integer, Integer>();
+		for (int i=0;i<1000;i++) content.put(i, sqr(i));
+		cache.set(content, 0);
+
+		assertEquals(content.size(), cache.size());
+		assertEquals(content.keySet(), cache.keySet());
+		assertEquals(content.entrySet(), cache.entrySet());
+		assertEquals(new HashSet<>(content.values()), new HashSet<>(cache.values()));
+
+		cache.remove(42);
+		assertTrue(!cache.contains(42), "Removed key still contained");
+		assertEquals(null, cache.fetch(42));
+
+		cache.clear();
+		assertTrue(cache.isEmpty(), "Cache not empty after clearing");
+	}
+}
@@ -0,0 +1,86 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.ds67.jminicache.impl.eviction.SieveManager;
+import com.github.ds67.jminicache.impl.payload.KeyValuePayload;
+import com.github.ds67.jminicache.impl.payload.ListWrapper;
+
+public class SieveTest {
+
+	@Test
+	public void basicSieveTest ()
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SIEVE)
+			    .setMaxSize(maxSize)
+			    .build();
+		
+		for (int i=0;i<10;i++) cache.set(i,i);
+		cache.fetch(0);
+		cache.fetch(5);
+		cache.set(10,10);
+		cache.set(11,11);
+		
+		assertEquals(Set.of(0,3,4,5,6,7,8,9,10,11),new HashSet<>(cache.keySet()),"The oldest not visited keys should have been removed");
+		
+		// the hand continues behind the last removed key and resets the visited key 5 when it passes it
+		for (int i=12;i<18;i++) cache.set(i,i);
+		assertEquals(Set.of(0,5,10,11,12,13,14,15,16,17),new HashSet<>(cache.keySet()),"The hand should have passed the visited key");
+		
+		// the hand reaches the newer keys before it starts again with the oldest ones
+		for (int i=18;i<28;i++) cache.set(i,i);
+		assertEquals(Set.of(0,5,20,21,22,23,24,25,26,27),new HashSet<>(cache.keySet()),"The hand should have continued with the newer keys");
+	}
+
+	@Test
+	public void readHotKeysTest ()
+	{
+		final int maxSize = 100;
+		final int hotKeys = 50;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_SIEVE)
+			    .setMaxSize(maxSize)
+			    .setValueFactory(LRUTest::sqr)
+			    .build();
+
+		for (int i=1000;i<3000;i++) {
+			assertEquals(LRUTest.sqr(i), cache.get(i));
+			for (int k=0;k<hotKeys;k++) cache.get(k);
+		}
+
+		assertEquals(maxSize, cache.size());
+		for (int i=0;i<hotKeys;i++) assertTrue(cache.contains(i), "Frequently read key "+i+" was removed");
+	}
+
+	/*
+	 * Entries which are marked again by concurrent readers do not keep the hand moving forever
+	 */
+	@Test
+	public void alwaysVisitedTest ()
+	{
+		final var manager = new SieveManager<Integer, Integer, ListWrapper<Integer, Integer, KeyValuePayload<Integer, Integer>>>(
+				(k, v) -> new ListWrapper<>(new KeyValuePayload<>(k, v)) {
+					// a reader marks the entry again right after the hand has reset it
+					@Override
+					public int getHits() {
+						return 1;
+					}
+				},
+				ListWrapper::getPayload);
+		final var cache = new HashMap<Integer, ListWrapper<Integer, Integer, KeyValuePayload<Integer, Integer>>>();
+		for (int i=0;i<10;i++) manager.onWrite(cache, manager.createWrapper(i, i), null);
+
+		assertEquals(0, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> manager.getForDeletion()), "The entry under the hand should have been evicted");
+	}
+}
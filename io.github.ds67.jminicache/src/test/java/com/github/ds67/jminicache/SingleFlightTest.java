@@ -0,0 +1,85 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+	static final int threads = 8;
+
+	/*
+	 * Many threads miss the same key at the same time, the supplier must be called just once
+	 */
+	@Test
+	public void singleLoadTest () throws Exception
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>().build();
+		final var calls = new AtomicInteger();
+		final var release = new CountDownLatch(1);
+
+		final var executor = Executors.newFixedThreadPool(threads);
+		try {
+			final var results = new ArrayList<Future<Integer>>();
+			for (int i=0;i<threads;i++) {
+				results.add(executor.submit(() -> cache.get(1, () -> {
+					calls.incrementAndGet();
+					release.await();
+					return ValueWithExpiry.of(42);
+				})));
+			}
+			// give all threads the chance to wait for the running supplier
+			Thread.sleep(200);
+			release.countDown();
+			for (var r: results) assertEquals(42, r.get(5, TimeUnit.SECONDS));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, calls.get(), "Supplier called more than once");
+		assertEquals(42, cache.fetch(1));
+	}
+
+	/*
+	 * Threads waiting for a value must receive the exception of the supplier and a later get must call the supplier again
+	 */
+	@Test
+	public void failedLoadTest () throws Exception
+	{
+		final var cache = new MiniCacheBuilder<Integer, Integer>().build();
+		final var release = new CountDownLatch(1);
+
+		final var executor = Executors.newFixedThreadPool(threads);
+		try {
+			final var results = new ArrayList<Future<Integer>>();
+			for (int i=0;i<threads;i++) {
+				results.add(executor.submit(() -> cache.get(1, () -> {
+					release.await();
+					throw new IOException("load failed");
+				})));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			for (var r: results) {
+				final var e = assertThrows(ExecutionException.class, () -> r.get(5, TimeUnit.SECONDS));
+				assertTrue(e.getCause() instanceof IOException, "Unexpected exception "+e.getCause());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertTrue(!cache.contains(1), "Failed load left a value");
+		assertEquals(4, cache.get(1, () -> ValueWithExpiry.of(4)));
+	}
+}
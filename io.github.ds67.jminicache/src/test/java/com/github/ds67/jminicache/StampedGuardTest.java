@@ -0,0 +1,42 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.ds67.jminicache.impl.guard.StampedGuard;
+
+public class StampedGuardTest {
+
+	/*
+	 * A promotion while the write lock is held (e.g. by the cleanup of soft values during an eviction) does not wait for itself
+	 */
+	@Test
+	public void promoteWithinWriteLockTest () throws Exception
+	{
+		final var guard = new StampedGuard(true);
+		final var promotions = CompletableFuture.supplyAsync(() -> {
+			// leaves a stale read stamp
+			guard.lockRead();
+			guard.unlockRead();
+
+			guard.lockWrite();
+			final boolean withinWriteLock = guard.promoteLock();
+			guard.unlockWrite();
+
+			guard.lockRead();
+			final boolean withinReadLock = guard.promoteLock();
+			guard.unlockWrite();
+			return new boolean[] { withinWriteLock, withinReadLock };
+		}).get(5, TimeUnit.SECONDS);
+
+		assertFalse(promotions[0], "The write lock was promoted");
+		assertTrue(promotions[1], "The read lock was not promoted");
+		assertEquals(Boolean.TRUE, guard.tryOptimisticRead(() -> Boolean.TRUE), "The guard is still locked");
+	}
+}
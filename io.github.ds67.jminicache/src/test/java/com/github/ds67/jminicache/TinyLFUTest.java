@@ -0,0 +1,56 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TinyLFUTest {
+
+	/*
+	 * A new key which was used once loses against the frequently read victim, a new key which was read often wins
+	 */
+	@Test
+	public void admissionTest ()
+	{
+		final int maxSize = 100;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_TINYLFU)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.set(i, i);
+		for (int n=0;n<5;n++) {
+			for (int i=0;i<maxSize;i++) cache.fetch(i);
+		}
+		
+		// the first eviction fills the main region, then every new key leaves the window when the next one is written
+		for (int i=1000;i<1050;i++) cache.set(i, i);
+		for (int i=1000;i<1049;i++) assertTrue(!cache.contains(i), "Key "+i+" used once was admitted");
+		assertTrue(cache.contains(1049), "Newest key must stay in the window");
+		
+		for (int n=0;n<10;n++) cache.fetch(1049);
+		cache.set(2000, 2000);
+		assertTrue(cache.contains(1049), "Frequently read key was not admitted");
+		assertEquals(maxSize, cache.size());
+	}
+	
+	/*
+	 * Frequencies counted while the cache fills up for the first time are kept
+	 */
+	@Test
+	public void warmUpHistoryTest ()
+	{
+		final int maxSize = 100;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_TINYLFU)
+			    .setMaxSize(maxSize)
+			    .build();
+
+		cache.set(0, 0);
+		for (int n=0;n<10;n++) cache.fetch(0);
+		for (int i=1;i<3*maxSize;i++) cache.set(i, i);
+		
+		assertTrue(cache.contains(0), "Frequently read key was evicted");
+	}
+}
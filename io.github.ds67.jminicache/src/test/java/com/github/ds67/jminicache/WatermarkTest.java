@@ -0,0 +1,60 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class WatermarkTest {
+
+	@Test
+	public void batchEvictionTest ()
+	{
+		final int maxSize = 100;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+			    .setMaxSize(maxSize)
+			    .setLowWatermark(0.9)
+			    .setCalculateStatistics(true)
+			    .build();
+
+		for (int i=0;i<maxSize;i++) cache.set(i, i);
+		assertEquals(maxSize, cache.size());
+		assertEquals(0, cache.getStatistics().getShrinkCounter());
+		
+		// exceeding the maximum evicts the least recently used entries down to the low watermark
+		cache.set(maxSize, maxSize);
+		assertEquals(90, cache.size());
+		assertEquals(11, cache.getStatistics().getShrinkCounter());
+		assertEquals(11, cache.getStatistics().getRemovalCounter());
+		for (int i=0;i<=10;i++) assertFalse(cache.contains(i), "Key "+i+" should have been evicted");
+		assertTrue(cache.contains(maxSize), "The written key must not be evicted");
+		
+		// the following writes do not evict until the maximum is exceeded again
+		for (int i=maxSize+1;i<maxSize+11;i++) cache.set(i, i);
+		assertEquals(maxSize, cache.size());
+		assertEquals(11, cache.getStatistics().getShrinkCounter());
+	}
+	
+	@Test
+	public void expiryCleanupTest () throws InterruptedException
+	{
+		final int maxSize = 10;
+		final var cache = new MiniCacheBuilder<Integer, Integer>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)
+			    .setMaxSize(maxSize)
+			    .setLowWatermark(0.5)
+			    .setDefaultExpiryTime(100)
+			    .setCalculateStatistics(true)
+			    .build();
+
+		for (int i=0;i<maxSize+1;i++) cache.set(i, i);
+		assertEquals(5, cache.size());
+		
+		// evicted keys must have left the expiry manager, only the remaining keys expire
+		Thread.sleep(300);
+		assertEquals(0, cache.size());
+		assertEquals(5, cache.getStatistics().getExpiredCounter());
+	}
+}
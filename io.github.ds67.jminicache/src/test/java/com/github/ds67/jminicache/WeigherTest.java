@@ -0,0 +1,58 @@
+package com.github.ds67.jminicache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class WeigherTest {
+
+	private static long totalWeight (MiniCache<Integer, byte[]> cache)
+	{
+		return cache.values().stream().mapToLong((v) -> v.length).sum();
+	}
+	
+	@Test
+	public void maxWeightTest ()
+	{
+		final var cache = new MiniCacheBuilder<Integer, byte[]>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_LRU)
+				.setMaxSize(1000)
+				.setMaxWeight(10000)
+				.setWeigher((k, v) -> v.length)
+			    .build();
+		
+		for (int i=0;i<100;i++) {
+			cache.set(i, new byte[(i*37)%1000]);
+			assertTrue(totalWeight(cache)<=10000, "Maximum weight exceeded");
+		}
+		// the weight limit is reached long before the size limit
+		assertTrue(cache.size()<100, "No entries evicted");
+		assertTrue(cache.contains(99), "Newest entry was evicted");
+		
+		// updates replace the weight of the former value
+		for (int i=0;i<10;i++) cache.set(99, new byte[5000]);
+		assertTrue(totalWeight(cache)<=10000, "Maximum weight exceeded");
+		assertTrue(cache.contains(99), "Updated entry was evicted");
+		
+		cache.setMaxWeight(5000);
+		assertEquals(1, cache.size());
+		
+		// an entry heavier than the maximum weight is not kept
+		cache.set(100, new byte[6000]);
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void defaultWeightTest ()
+	{
+		final var cache = new MiniCacheBuilder<Integer, byte[]>()
+				.setEvictionPolicy(MiniCacheBuilder.EvictionPolicy.EVICTION_FIFO)
+				.setMaxWeight(10)
+			    .build();
+		
+		for (int i=0;i<100;i++) cache.set(i, new byte[100]);
+		// without a weigher every entry weighs 1
+		assertEquals(10, cache.size());
+	}
+}
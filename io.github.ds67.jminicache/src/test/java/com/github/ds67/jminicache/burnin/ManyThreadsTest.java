@@ -11,6 +11,8 @@ import org.junit.jupiter.api.Test;
 import com.github.ds67.jminicache.MiniCache;
 import com.github.ds67.jminicache.MiniCacheBuilder;
 import com.github.ds67.jminicache.MiniCacheBuilder.EvictionPolicy;
+import com.github.ds67.jminicache.MiniCacheBuilder.LockingPolicy;
+import com.github.ds67.jminicache.MiniCacheBuilder.StoragePolicy;
 
 public class ManyThreadsTest {
 	
@@ -67,6 +69,62 @@ public class ManyThreadsTest {
 		assertEquals(250, cache.size());
 	}
 
+	@Test
+	public void concurrentStorageFifoParallelTest () throws InterruptedException
+	{
+		final var cache =  new MiniCacheBuilder<Integer, byte[]>()
+			.setEvictionPolicy(EvictionPolicy.EVICTION_FIFO)
+			.setStoragePolicy(StoragePolicy.CONCURRENT_HASH_STORAGE)
+           .setMaxSize(120)
+           .build();
+		
+		burn(cache,10000);
+
+		assertEquals(120, cache.size());
+	}
+	
+	@Test
+	public void optimisticLockingFifoParallelTest () throws InterruptedException
+	{
+		final var cache =  new MiniCacheBuilder<Integer, byte[]>()
+			.setEvictionPolicy(EvictionPolicy.EVICTION_FIFO)
+			.setLockingPolicy(LockingPolicy.OPTIMISTIC_LOCKING)
+           .setMaxSize(120)
+           .build();
+		
+		burn(cache,10000);
+
+		assertEquals(120, cache.size());
+	}
+	
+	@Test
+	public void optimisticLockingLruParallelTest () throws InterruptedException
+	{
+		final var cache =  new MiniCacheBuilder<Integer, byte[]>()
+			.setEvictionPolicy(EvictionPolicy.EVICTION_LRU)
+			.setLockingPolicy(LockingPolicy.OPTIMISTIC_LOCKING)
+           .setMaxSize(250)
+           .build();
+		
+		burn(cache,10000);
+
+		assertEquals(250, cache.size());
+	}
+	
+	@Test
+	public void segmentedLruParallelTest () throws InterruptedException
+	{
+		final var cache = new MiniCacheBuilder<Integer, byte[]>()
+				.setEvictionPolicy(EvictionPolicy.EVICTION_LRU)
+				   .setConcurrencyLevel(5)
+		           .setMaxSize(250)
+		           .build();
+
+		burn(cache,10000);
+
+		assertEquals(250, cache.size());
+	}
+
 	LongAdder gets = new LongAdder();
 	LongAdder sets = new LongAdder();
 
@@ -123,11 +181,12 @@ public class ManyThreadsTest {
 		assertEquals (sets.longValue(), stats.getUpdateCounter());
 		// Test statistic consistency: The number of insert less than the number of removals should the cache size
 		assertEquals (maxSize, stats.getUpdateCounter()-stats.getRemovalCounter());
-		// Test statistic consistency: The number of all gets should be the same as all fetches minus all misses plus all inserts:
-		// A get is either a immediate hit (and therefore a single fetch) or an unsuccessful fetch (which is a miss), a insert and afterwards a successful fetch
+		// Test statistic consistency: The number of all gets should be the same as all fetches minus all misses plus all inserts plus all collisions:
+		// A get is either a immediate hit (and therefore a single fetch), an unsuccessful fetch (which is a miss) followed by an insert or 
+		// an unsuccessful fetch followed by waiting for the value another thread is loading (which is a collision).
 		// Two accesses are true for all parallel read configurations (as FIFO EVICTION) as a second read access must be tried after the
 		// exclusive lock was acquired. Some other thread might have inserted the key in the mean time until the exclusive lock was acquired 
-		assertEquals (stats.getGetCounter(), stats.getFetchCounter()-stats.getMissesCounter()+stats.getUpdateCounter());
+		assertEquals (stats.getGetCounter(), stats.getFetchCounter()-stats.getMissesCounter()+stats.getUpdateCounter()+stats.getCollisionCounter());
 		
 		assertEquals (maxSize, cache.size());
 	}
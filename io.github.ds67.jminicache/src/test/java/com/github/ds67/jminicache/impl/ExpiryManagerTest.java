@@ -0,0 +1,105 @@
+package com.github.ds67.jminicache.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/*
+ * The wheel is advanced directly far into the future, the periodic task of the scheduler only processes the ticks up to
+ * the real time and therefore never expires a key of these tests.
+ */
+public class ExpiryManagerTest {
+
+	private ScheduledExecutorService scheduler;
+	private List<Integer> expired;
+	private ExpiryManager<Integer> manager;
+	// start of a tick shortly after the current time
+	private long base;
+
+	@BeforeEach
+	public void setUp ()
+	{
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		expired = new CopyOnWriteArrayList<>();
+		manager = new ExpiryManager<Integer>(expired::addAll, scheduler);
+		base = (System.currentTimeMillis()/ExpiryManager.TICK_MILLIS+1)*ExpiryManager.TICK_MILLIS;
+	}
+
+	@AfterEach
+	public void tearDown ()
+	{
+		scheduler.shutdownNow();
+	}
+
+	private long tick (final long ticks)
+	{
+		return base+ticks*ExpiryManager.TICK_MILLIS;
+	}
+
+	/*
+	 * Keys of every level expire exactly with their tick after they were cascaded to the levels below
+	 */
+	@Test
+	public void upperLevelsTest ()
+	{
+		// one key per level of the wheel (64 slots per level)
+		final long[] deadlines = { 5, 100, 5_000, 300_000, (1L << 24)+12_345 };
+		for (int i=0;i<deadlines.length;i++) manager.add(i, tick(deadlines[i]));
+
+		for (int i=0;i<deadlines.length;i++) {
+			manager.advance(tick(deadlines[i]-1));
+			assertEquals(i, expired.size(), "Key "+i+" expired early");
+			manager.advance(tick(deadlines[i]));
+			assertEquals(i+1, expired.size(), "Key "+i+" did not expire at its tick");
+			assertEquals(i, expired.get(i));
+		}
+	}
+
+	/*
+	 * Keys are removed from the upper levels, before and after they were cascaded
+	 */
+	@Test
+	public void removeFromUpperLevelsTest ()
+	{
+		manager.add(1, tick(5_000));
+		manager.add(2, tick(300_000));
+		manager.add(3, tick(300_000));
+		manager.add(4, tick(310_000));
+		manager.remove(1);
+
+		// key 3 was cascaded to a lower level when it is removed
+		manager.advance(tick(299_000));
+		manager.remove(3);
+		manager.removeAll(List.of(4));
+
+		manager.advance(tick(400_000));
+		assertEquals(List.of(2), expired);
+	}
+
+	/*
+	 * Keys beyond the range of the wheel stay in the last slot until their deadline is in range
+	 */
+	@Test
+	public void beyondWheelTest ()
+	{
+		final long maxTicks = (1L << 30)-1;
+		manager.add(1, tick(maxTicks+100_000));
+		manager.add(2, tick(maxTicks-1));
+
+		manager.advance(tick(maxTicks-2));
+		assertEquals(List.of(), expired);
+		manager.advance(tick(maxTicks-1));
+		assertEquals(List.of(2), expired);
+		manager.advance(tick(maxTicks+99_999));
+		assertEquals(List.of(2), expired, "Key beyond the wheel expired early");
+		manager.advance(tick(maxTicks+100_000));
+		assertEquals(List.of(2, 1), expired);
+	}
+}